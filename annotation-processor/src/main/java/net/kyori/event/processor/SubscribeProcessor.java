@@ -0,0 +1,188 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import net.kyori.event.ListenerAdapter;
+import net.kyori.event.Subscribe;
+
+/**
+ * Generates a {@link ListenerAdapter} for every class with {@link Subscribe} methods.
+ *
+ * @since 5.0.0
+ */
+public final class SubscribeProcessor extends AbstractProcessor {
+  private static final String SUBSCRIBE = Subscribe.class.getCanonicalName();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(SUBSCRIBE);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment round) {
+    final Map<TypeElement, List<ExecutableElement>> listeners = new LinkedHashMap<>();
+    for(final Element element : round.getElementsAnnotatedWith(Subscribe.class)) {
+      final ExecutableElement method = (ExecutableElement) element;
+      // an override of a subscriber method is already called through the adapter of the class it overrides
+      if(this.valid(method) && !this.overridesSubscriber(method)) {
+        listeners.computeIfAbsent((TypeElement) method.getEnclosingElement(), key -> new ArrayList<>()).add(method);
+      }
+    }
+    for(final Map.Entry<TypeElement, List<ExecutableElement>> listener : listeners.entrySet()) {
+      this.generate(listener.getKey(), listener.getValue());
+    }
+    return true;
+  }
+
+  private boolean valid(final ExecutableElement method) {
+    final Set<Modifier> modifiers = method.getModifiers();
+    if(modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)) {
+      return this.error(method, "@Subscribe methods must not be static or private");
+    }
+    if(method.getParameters().size() != 1) {
+      return this.error(method, "@Subscribe methods must take the event as their only parameter");
+    }
+    if(method.getParameters().get(0).asType().getKind() != TypeKind.DECLARED) {
+      return this.error(method, "the event parameter of a @Subscribe method must be a class or interface type");
+    }
+    final TypeElement declaring = (TypeElement) method.getEnclosingElement();
+    if(declaring.getKind() != ElementKind.CLASS) {
+      return this.error(method, "@Subscribe methods must be declared by a class");
+    }
+    for(Element enclosing = declaring; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+      final TypeElement type = (TypeElement) enclosing;
+      if(type.getNestingKind() != NestingKind.TOP_LEVEL && type.getNestingKind() != NestingKind.MEMBER) {
+        return this.error(method, "@Subscribe methods must not be declared by a local or anonymous class");
+      }
+      if(type.getModifiers().contains(Modifier.PRIVATE)) {
+        return this.error(method, "@Subscribe methods must not be declared by a private class");
+      }
+      if(type.getNestingKind() == NestingKind.MEMBER && type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.STATIC)) {
+        return this.error(method, "@Subscribe methods must not be declared by an inner class");
+      }
+    }
+    return true;
+  }
+
+  private boolean overridesSubscriber(final ExecutableElement method) {
+    final TypeElement declaring = (TypeElement) method.getEnclosingElement();
+    final Elements elements = this.processingEnv.getElementUtils();
+    for(TypeMirror type = declaring.getSuperclass(); type.getKind() == TypeKind.DECLARED; type = ((TypeElement) ((DeclaredType) type).asElement()).getSuperclass()) {
+      for(final Element member : ((DeclaredType) type).asElement().getEnclosedElements()) {
+        if(member.getKind() == ElementKind.METHOD && member.getAnnotation(Subscribe.class) != null && elements.overrides(method, (ExecutableElement) member, declaring)) {
+          if(!method.getAnnotation(Subscribe.class).equals(member.getAnnotation(Subscribe.class))) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "overrides a @Subscribe method of " + member.getEnclosingElement() + ", whose @Subscribe applies instead", method);
+          }
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean error(final Element element, final String message) {
+    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    return false;
+  }
+
+  private void generate(final TypeElement listener, final List<ExecutableElement> methods) {
+    final String packageName = this.processingEnv.getElementUtils().getPackageOf(listener).getQualifiedName().toString();
+    final String binaryName = this.processingEnv.getElementUtils().getBinaryName(listener).toString();
+    final String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + ListenerAdapter.SUFFIX;
+    final String listenerName = listener.getQualifiedName().toString();
+
+    final StringBuilder source = new StringBuilder();
+    if(!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source.append("// generated by ").append(SubscribeProcessor.class.getName()).append(" - do not edit\n");
+    source.append("public final class ").append(simpleName).append(" implements net.kyori.event.ListenerAdapter<").append(listenerName).append("> {\n");
+    source.append("  @Override\n");
+    source.append("  public void subscribers(final net.kyori.event.SubscriptionGroup.Builder<Object> group, final ").append(listenerName).append(" listener) {\n");
+    for(final ExecutableElement method : methods) {
+      final Subscribe subscribe = method.getAnnotation(Subscribe.class);
+      final String event = this.eventName(method);
+      source.append("    group.add(").append(event).append(".class, new net.kyori.event.EventSubscriber<").append(event).append(">() {\n");
+      source.append("      @Override\n");
+      source.append("      public void on(final ").append(event).append(" event) throws Throwable {\n");
+      source.append("        listener.").append(method.getSimpleName()).append("(event);\n");
+      source.append("      }\n\n");
+      source.append("      @Override\n");
+      source.append("      public int postOrder() {\n");
+      source.append("        return ").append(subscribe.postOrder()).append(";\n");
+      source.append("      }\n\n");
+      source.append("      @Override\n");
+      source.append("      public boolean acceptsCancelled() {\n");
+      source.append("        return ").append(subscribe.acceptsCancelled()).append(";\n");
+      source.append("      }\n\n");
+      source.append("      @Override\n");
+      source.append("      public String toString() {\n");
+      source.append("        return \"").append(listenerName).append('#').append(method.getSimpleName()).append("(").append(event).append(")\";\n");
+      source.append("      }\n");
+      source.append("    });\n");
+    }
+    source.append("  }\n");
+    source.append("}\n");
+
+    final String name = packageName.isEmpty() ? simpleName : packageName + '.' + simpleName;
+    try(final Writer writer = this.processingEnv.getFiler().createSourceFile(name, listener).openWriter()) {
+      writer.write(source.toString());
+    } catch(final IOException e) {
+      this.error(listener, "Could not generate " + name + ": " + e.getMessage());
+    }
+  }
+
+  // the erasure, as a class literal can't have type arguments
+  private String eventName(final ExecutableElement method) {
+    final TypeMirror type = method.getParameters().get(0).asType();
+    return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.processor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import net.kyori.event.EventBus;
+import net.kyori.event.EventSubscription;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscribeProcessorTest {
+  private static final String LISTENER = String.join("\n",
+    "package test;",
+    "",
+    "import java.util.ArrayList;",
+    "import java.util.List;",
+    "import net.kyori.event.PostOrders;",
+    "import net.kyori.event.Subscribe;",
+    "",
+    "public class Listener {",
+    "  public final List<String> calls = new ArrayList<>();",
+    "",
+    "  @Subscribe(postOrder = PostOrders.LATE)",
+    "  void late(final String event) {",
+    "    this.calls.add(\"late \" + event);",
+    "  }",
+    "",
+    "  @Subscribe(postOrder = PostOrders.EARLY, acceptsCancelled = false)",
+    "  public void early(final CharSequence event) throws Exception {",
+    "    this.calls.add(\"early \" + event);",
+    "  }",
+    "",
+    "  public static class Nested extends Listener {",
+    "    @Subscribe",
+    "    void integer(final Integer event) {",
+    "      this.calls.add(\"integer \" + event);",
+    "    }",
+    "",
+    "    @Override",
+    "    @Subscribe(postOrder = PostOrders.LATE)",
+    "    void late(final String event) {",
+    "      this.calls.add(\"nested late \" + event);",
+    "    }",
+    "  }",
+    "}",
+    "",
+    "class Listener_Nested {",
+    "  @Subscribe",
+    "  void on(final String event) {",
+    "  }",
+    "}"
+  );
+
+  @Test
+  void testGeneratedAdapters() throws Exception {
+    final Path output = Files.createTempDirectory("subscribe-processor");
+    final String diagnostics = compile(output, "test.Listener", LISTENER);
+    assertTrue(Files.exists(output.resolve("test/Listener_EventSubscribers.class")), diagnostics);
+    assertTrue(Files.exists(output.resolve("test/Listener$Nested_EventSubscribers.class")), diagnostics);
+    assertTrue(Files.exists(output.resolve("test/Listener_Nested_EventSubscribers.class")), diagnostics);
+    try(final URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, SubscribeProcessorTest.class.getClassLoader())) {
+      final Object listener = loader.loadClass("test.Listener$Nested").getConstructor().newInstance();
+      @SuppressWarnings("unchecked")
+      final List<String> calls = (List<String>) listener.getClass().getField("calls").get(listener);
+      final EventBus<Object> bus = EventBus.create(Object.class);
+      final EventSubscription subscription = bus.register(listener);
+      bus.post("a");
+      bus.post(1);
+      // the override is only subscribed once, through the adapter of the class it overrides
+      assertEquals(Arrays.asList("early a", "nested late a", "integer 1"), calls);
+      subscription.unsubscribe();
+      assertFalse(bus.subscribed(String.class));
+
+      final EventBus<CharSequence> strings = EventBus.create(CharSequence.class);
+      assertThrows(IllegalArgumentException.class, () -> strings.register(listener));
+      assertFalse(strings.subscribed(String.class));
+    }
+  }
+
+  @Test
+  void testInvalidSubscriber() throws IOException {
+    final String diagnostics = compile(Files.createTempDirectory("subscribe-processor"), "test.Invalid", String.join("\n",
+      "package test;",
+      "",
+      "public class Invalid {",
+      "  @net.kyori.event.Subscribe",
+      "  private void on(final String event) {",
+      "  }",
+      "}"
+    ));
+    assertTrue(diagnostics.contains("@Subscribe methods must not be static or private"), diagnostics);
+  }
+
+  private static String compile(final Path output, final String name, final String source) {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final StringWriter diagnostics = new StringWriter();
+    final JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+        return source;
+      }
+    };
+    final JavaCompiler.CompilationTask task = compiler.getTask(
+      diagnostics,
+      null,
+      null,
+      Arrays.asList("-d", output.toString(), "-classpath", System.getProperty("java.class.path")),
+      null,
+      Collections.singletonList(file)
+    );
+    task.setProcessors(Collections.singletonList(new SubscribeProcessor()));
+    task.call();
+    return diagnostics.toString();
+  }
+}
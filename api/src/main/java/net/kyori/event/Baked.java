@@ -0,0 +1,99 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.Arrays;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// The subscribers of a concrete event class, in the order they are posted to. Immutable once created, but for the
+// compiled dispatcher kept alongside them.
+final class Baked<E> {
+  private static final Object NOT_COMPILED = new Object();
+  final EventSubscriber<? super E>[] subscribers;
+  // bit i is set if subscribers[i] accepts cancelled events
+  private final long[] acceptsCancelled;
+  // the last position that accepts cancelled events, or -1 - past it, a cancelled event is not posted to anything
+  final int lastAcceptingCancelled;
+  final int @Nullable [] tiers;
+  // only present when some of the subscribers are keyed
+  final @Nullable KeyIndex index;
+  // the subscribers to invoke once the index has matched them: keyed subscribers are unwrapped, so that their key is
+  // not checked again - the same array as subscribers when there is no index
+  final EventSubscriber<? super E>[] direct;
+  // compiled the first time it is posted to, by a bus with compiled dispatch - or NOT_COMPILED if it can't be. Posts
+  // racing to compile it may each do so, and only one is kept
+  private @Nullable Object compiled;
+
+  Baked(final EventSubscriber<? super E>[] subscribers, final boolean tiers) {
+    this.subscribers = subscribers;
+    this.acceptsCancelled = new long[(subscribers.length + 63) >>> 6];
+    int lastAcceptingCancelled = -1;
+    for(int i = 0; i < subscribers.length; i++) {
+      if(subscribers[i].acceptsCancelled()) {
+        this.acceptsCancelled[i >>> 6] |= 1L << i;
+        lastAcceptingCancelled = i;
+      }
+    }
+    this.lastAcceptingCancelled = lastAcceptingCancelled;
+    this.tiers = tiers ? tiers(subscribers) : null;
+    this.index = KeyIndex.create(subscribers);
+    this.direct = this.index != null ? unwrap(subscribers) : subscribers;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable CompiledDispatch<E> compiled(final Class<?> event) {
+    Object compiled = this.compiled;
+    if(compiled == null) {
+      final CompiledDispatch<E> fresh = CompiledDispatch.compile(event, this);
+      compiled = fresh != null ? fresh : NOT_COMPILED;
+      this.compiled = compiled;
+    }
+    return compiled != NOT_COMPILED ? (CompiledDispatch<E>) compiled : null;
+  }
+
+  boolean acceptsCancelled(final int index) {
+    return (this.acceptsCancelled[index >>> 6] & (1L << index)) != 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E> EventSubscriber<? super E>[] unwrap(final EventSubscriber<? super E>[] subscribers) {
+    final EventSubscriber<? super E>[] direct = subscribers.clone();
+    for(int i = 0; i < direct.length; i++) {
+      direct[i] = (EventSubscriber<? super E>) KeyedEventSubscriber.unwrap(direct[i]);
+    }
+    return direct;
+  }
+
+  // the (exclusive) end index of each run of subscribers sharing a post order
+  private static int[] tiers(final EventSubscriber<?>[] subscribers) {
+    final int[] ends = new int[subscribers.length];
+    int tiers = 0;
+    for(int i = 1; i <= subscribers.length; i++) {
+      if(i == subscribers.length || subscribers[i].postOrder() != subscribers[i - 1].postOrder()) {
+        ends[tiers++] = i;
+      }
+    }
+    return Arrays.copyOf(ends, tiers);
+  }
+}
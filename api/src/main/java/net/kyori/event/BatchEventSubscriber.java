@@ -0,0 +1,62 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * An event subscriber that can consume a whole batch of events at once.
+ *
+ * <p>When events are {@link EventBus#postAll(java.util.Collection) posted in bulk}, a batch subscriber
+ * is called once per event type with every event of that type it {@link EventBus.Accepts accepts},
+ * instead of once per event.</p>
+ *
+ * @param <E> the event type
+ * @since 5.0.0
+ */
+@FunctionalInterface
+public interface BatchEventSubscriber<E> extends EventSubscriber<E> {
+  /**
+   * Invokes this event subscriber with a batch of events.
+   *
+   * @param events the events, in the order they were posted
+   * @since 5.0.0
+   */
+  void onBatch(final @NonNull List<? extends E> events) throws Throwable;
+
+  /**
+   * Invokes this event subscriber with a single event.
+   *
+   * <p>By default, this is a batch of one.</p>
+   *
+   * @param event the event
+   * @since 5.0.0
+   */
+  @Override
+  default void on(final @NonNull E event) throws Throwable {
+    this.onBatch(Collections.singletonList(event));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * An event bus that inherits the subscribers of a parent bus.
+ *
+ * <p>Events posted to a child bus reach the subscribers of its parent as well as its own, in
+ * {@link EventSubscriber#postOrder() post order} - among subscribers sharing a post order, those of the
+ * parent come first. Events posted to the parent never reach the subscribers of its children.</p>
+ *
+ * <p>The parent holds no reference to its children. Closing a child releases all of its subscribers
+ * at once, no matter how many there are.</p>
+ *
+ * @param <E> the event type
+ * @see EventBus#child()
+ * @since 5.0.0
+ */
+public interface ChildEventBus<E> extends EventBus<E>, AutoCloseable {
+  /**
+   * Gets the bus that this bus inherits subscribers from.
+   *
+   * @return the parent bus
+   * @since 5.0.0
+   */
+  @NonNull EventBus<E> parent();
+
+  /**
+   * Gets if this bus has been closed.
+   *
+   * @return {@code true} if this bus has been closed
+   * @since 5.0.0
+   */
+  boolean closed();
+
+  /**
+   * Closes this bus, releasing all of its subscribers.
+   *
+   * <p>Once closed, posting to or subscribing to this bus throws an {@link IllegalStateException}, and so
+   * does posting to any of its children.</p>
+   *
+   * @since 5.0.0
+   */
+  @Override
+  void close();
+}
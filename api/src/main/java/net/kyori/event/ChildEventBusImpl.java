@@ -0,0 +1,370 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+// A child only keeps the subscribers registered to it, by class, and merges them into what its parent posts each
+// event to. Nothing outside of this class refers to them - not even a ClassValue - so closing only has to let go.
+final class ChildEventBusImpl<E> implements ChildEventBus<E>, ParentEventBus<E> {
+  private static final Comparator<EventSubscriber<?>> COMPARATOR = Comparator.comparingInt(EventSubscriber::postOrder);
+  private final EventBusImpl.BuilderImpl<E> builder;
+  private final ParentEventBus<E> parent;
+  private final Dispatcher<E> dispatcher;
+  private volatile @Nullable Local<E> local = new Local<>();
+
+  ChildEventBusImpl(final EventBusImpl.BuilderImpl<E> builder, final ParentEventBus<E> parent) {
+    this.builder = builder;
+    this.parent = parent;
+    this.dispatcher = new Dispatcher<>(builder, this);
+  }
+
+  private Local<E> local() {
+    final Local<E> local = this.local;
+    if(local == null) {
+      throw new IllegalStateException("child bus has been closed");
+    }
+    return local;
+  }
+
+  @Override
+  public @NonNull EventBus<E> parent() {
+    return this.parent;
+  }
+
+  @Override
+  public boolean closed() {
+    return this.local == null;
+  }
+
+  @Override
+  public void close() {
+    final Local<E> local = this.local;
+    this.local = null;
+    // only visited when something has to be told about each of them
+    if(local != null && this.dispatcher.reportsUnsubscribed()) {
+      synchronized(local) {
+        for(final EventSubscriber<? super E>[] subscribers : local.subscribers.values()) {
+          for(final EventSubscriber<? super E> subscriber : subscribers) {
+            this.dispatcher.unsubscribed(subscriber);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public @NonNull Class<E> type() {
+    return this.builder.type;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public @NonNull PostResult post(final @NonNull E event) {
+    return this.dispatcher.post(event, this.dispatched((Class<? extends E>) event.getClass()));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean post(final @NonNull E event, final @NonNull BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler) {
+    return this.dispatcher.post(event, this.dispatched((Class<? extends E>) event.getClass()), exceptionHandler);
+  }
+
+  @Override
+  public @NonNull PostResult postAll(final @NonNull Collection<? extends E> events) {
+    this.local();
+    return this.dispatcher.postAll(events, this::dispatched);
+  }
+
+  @Override
+  public @NonNull CompletableFuture<PostResult> postAsync(final @NonNull E event) {
+    this.local();
+    return this.postAsync(event, this.builder.asyncExecutor);
+  }
+
+  @Override
+  public boolean subscribed(final @NonNull Class<? extends E> type) {
+    final Local<E> local = this.local();
+    if(this.parent.subscribed(type)) {
+      return true;
+    }
+    for(final Class<?> ancestor : Internals.ancestors(type)) {
+      if(local.subscribers.containsKey(ancestor)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends E> @NonNull EventSubscription subscribe(final @NonNull Class<T> event, final @NonNull EventSubscriber<? super T> subscriber) {
+    final Local<E> local = this.local();
+    final EventSubscriber<? super E> erased = (EventSubscriber<? super E>) requireNonNull(subscriber, "subscriber");
+    this.dispatcher.subscribed(erased);
+    synchronized(local) {
+      local.add(requireNonNull(event, "event"), erased);
+      local.version++;
+    }
+    WeakSubscriber.expire(local.expired);
+    return () -> {
+      synchronized(local) {
+        if(local.remove(event, erased)) {
+          local.version++;
+          this.dispatcher.unsubscribed(erased);
+        }
+      }
+    };
+  }
+
+  @Override
+  public @NonNull EventSubscription subscribe(final @NonNull SubscriptionGroup<E> group) {
+    final Local<E> local = this.local();
+    for(int i = 0; i < group.size(); i++) {
+      this.dispatcher.subscribed(group.subscriber(i));
+    }
+    synchronized(local) {
+      for(int i = 0; i < group.size(); i++) {
+        local.add(group.type(i), group.subscriber(i));
+      }
+      local.version++;
+    }
+    WeakSubscriber.expire(local.expired);
+    final AtomicBoolean subscribed = new AtomicBoolean(true);
+    return () -> {
+      if(subscribed.compareAndSet(true, false)) {
+        synchronized(local) {
+          for(int i = 0; i < group.size(); i++) {
+            if(local.remove(group.type(i), group.subscriber(i))) {
+              this.dispatcher.unsubscribed(group.subscriber(i));
+            }
+          }
+          local.version++;
+        }
+      }
+    };
+  }
+
+  @Override
+  public <T extends E, L> @NonNull EventSubscription subscribeWeakly(final @NonNull Class<T> event, final @NonNull L listener, final @NonNull WeakEventSubscriber<? super L, ? super T> subscriber) {
+    final WeakSubscriber<L, T> weak = new WeakSubscriber<>(requireNonNull(listener, "listener"), requireNonNull(subscriber, "subscriber"), this.local().expired);
+    final EventSubscription subscription = this.subscribe(event, weak);
+    weak.subscribed(subscription);
+    return subscription;
+  }
+
+  // only the subscribers of this child - those of the parent are left alone
+  @Override
+  public void unsubscribeIf(final @NonNull Predicate<EventSubscriber<? super E>> predicate) {
+    this.unsubscribeIf(this.local(), predicate);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void unsubscribeIf(final Local<E> local, final Predicate<EventSubscriber<? super E>> predicate) {
+    synchronized(local) {
+      boolean changed = false;
+      for(final Map.Entry<Class<?>, EventSubscriber<? super E>[]> entry : local.subscribers.entrySet()) {
+        final List<EventSubscriber<? super E>> remaining = new ArrayList<>(entry.getValue().length);
+        for(final EventSubscriber<? super E> subscriber : entry.getValue()) {
+          if(predicate.test((EventSubscriber<? super E>) KeyedEventSubscriber.unwrap(subscriber))) {
+            this.dispatcher.unsubscribed(subscriber);
+          } else {
+            remaining.add(subscriber);
+          }
+        }
+        if(remaining.size() != entry.getValue().length) {
+          changed = true;
+          if(remaining.isEmpty()) {
+            local.subscribers.remove(entry.getKey());
+          } else {
+            local.subscribers.put(entry.getKey(), remaining.toArray(newArray(remaining.size())));
+          }
+        }
+      }
+      if(changed) {
+        local.version++;
+      }
+    }
+  }
+
+  @Override
+  public void prebake(final @NonNull Collection<? extends Class<? extends E>> types) {
+    for(final Class<? extends E> type : types) {
+      if(!this.builder.type.isAssignableFrom(requireNonNull(type, "type"))) {
+        throw new IllegalArgumentException(type + " is not a subtype of " + this.builder.type);
+      }
+      this.dispatched(type);
+    }
+  }
+
+  @Override
+  public void purge(final @NonNull ClassLoader loader) {
+    requireNonNull(loader, "loader");
+    this.local().merged.clear(); // cheap to merge again
+  }
+
+  @Override
+  public @NonNull ChildEventBus<E> child() {
+    this.local();
+    return new ChildEventBusImpl<>(this.builder, this);
+  }
+
+  // The merge is kept until either side changes: the parent replaces its baked subscribers whenever they change,
+  // and every change here bumps the version - so checking both is enough to know that it is still valid.
+  @Override
+  public Baked<E> dispatched(final Class<? extends E> event) {
+    final Local<E> local = this.local();
+    final Baked<E> inherited = this.parent.dispatched(event);
+    if(local.subscribers.isEmpty()) {
+      return inherited;
+    }
+    final Merged<E> merged = local.merged.get(event);
+    final int version = local.version;
+    if(merged != null && merged.inherited == inherited && merged.version == version) {
+      return merged.baked;
+    }
+    final List<EventSubscriber<? super E>> own = new ArrayList<>();
+    for(final Class<?> ancestor : Internals.ancestors(event)) {
+      final EventSubscriber<? super E>[] subscribers = local.subscribers.get(ancestor);
+      if(subscribers != null) {
+        Collections.addAll(own, subscribers);
+      }
+    }
+    final Baked<E> baked;
+    if(own.isEmpty()) {
+      baked = inherited;
+    } else {
+      final EventSubscriber<? super E>[] sorted = own.toArray(newArray(own.size()));
+      Arrays.sort(sorted, COMPARATOR); // stable
+      baked = new Baked<>(merge(inherited.subscribers, sorted), this.builder.parallelExecutor != null);
+    }
+    if(local.merged.size() >= this.builder.maximumBaked) {
+      local.merged.clear();
+    }
+    local.merged.put(event, new Merged<>(inherited, version, baked));
+    return baked;
+  }
+
+  @Override
+  public void drop(final Predicate<EventSubscriber<? super E>> predicate) {
+    final Local<E> local = this.local;
+    if(local != null) {
+      this.unsubscribeIf(local, predicate);
+    }
+    this.parent.drop(predicate);
+  }
+
+  // both are sorted by post order - among subscribers sharing a post order, inherited ones come first
+  private static <E> EventSubscriber<? super E>[] merge(final EventSubscriber<? super E>[] inherited, final EventSubscriber<? super E>[] local) {
+    final EventSubscriber<? super E>[] merged = newArray(inherited.length + local.length);
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while(i < inherited.length && j < local.length) {
+      merged[k++] = local[j].postOrder() < inherited[i].postOrder() ? local[j++] : inherited[i++];
+    }
+    System.arraycopy(inherited, i, merged, k, inherited.length - i);
+    System.arraycopy(local, j, merged, k + inherited.length - i, local.length - j);
+    return merged;
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static <E> EventSubscriber<? super E>[] newArray(final int length) {
+    return new EventSubscriber[length];
+  }
+
+  // Everything a child holds on to. Changes are made holding its lock; posting reads it without.
+  private static final class Local<E> {
+    // the subscribers registered to exactly each class - the arrays are replaced, never modified
+    final ConcurrentMap<Class<?>, EventSubscriber<? super E>[]> subscribers = new ConcurrentHashMap<>();
+    // the merged subscribers of each posted class
+    final ConcurrentMap<Class<?>, Merged<E>> merged = new ConcurrentHashMap<>();
+    // bumped after every change to the subscribers
+    volatile int version;
+    // the weak subscribers whose listener has been collected
+    final ReferenceQueue<Object> expired = new ReferenceQueue<>();
+
+    void add(final Class<?> type, final EventSubscriber<? super E> subscriber) {
+      final EventSubscriber<? super E>[] subscribers = this.subscribers.get(type);
+      if(subscribers == null) {
+        final EventSubscriber<? super E>[] added = newArray(1);
+        added[0] = subscriber;
+        this.subscribers.put(type, added);
+      } else {
+        final EventSubscriber<? super E>[] added = Arrays.copyOf(subscribers, subscribers.length + 1);
+        added[subscribers.length] = subscriber;
+        this.subscribers.put(type, added);
+      }
+    }
+
+    boolean remove(final Class<?> type, final EventSubscriber<? super E> subscriber) {
+      final EventSubscriber<? super E>[] subscribers = this.subscribers.get(type);
+      if(subscribers != null) {
+        for(int i = 0; i < subscribers.length; i++) {
+          if(subscribers[i] == subscriber) {
+            if(subscribers.length == 1) {
+              this.subscribers.remove(type);
+            } else {
+              final EventSubscriber<? super E>[] removed = newArray(subscribers.length - 1);
+              System.arraycopy(subscribers, 0, removed, 0, i);
+              System.arraycopy(subscribers, i + 1, removed, i, subscribers.length - i - 1);
+              this.subscribers.put(type, removed);
+            }
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class Merged<E> {
+    final Baked<E> inherited;
+    final int version;
+    final Baked<E> baked;
+
+    Merged(final Baked<E> inherited, final int version, final Baked<E> baked) {
+      this.inherited = inherited;
+      this.version = version;
+      this.baked = baked;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * An event that may be replaced by a newer one before it is posted.
+ *
+ * <p>When a coalescable event is posted to an {@link EventPipeline} while another event of the same class
+ * with an {@link Object#equals(Object) equal} key is still queued, the queued event is replaced by the new
+ * one, which takes its place in the queue. This suits events that describe the latest state of something,
+ * where subscribers only care about the most recent one.</p>
+ *
+ * @since 5.0.0
+ */
+public interface Coalescable {
+  /**
+   * Gets the key that identifies which events replace each other.
+   *
+   * @return the coalescing key
+   * @since 5.0.0
+   */
+  @NonNull Object coalescingKey();
+}
@@ -0,0 +1,335 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// A baked list compiled into a class of its own, which calls each subscriber from a call site of its own. Each site
+// then only ever sees one subscriber class, and the JIT compiler can inline it - the loop in Dispatcher calls every
+// subscriber from the same site, which on any real bus sees too many classes for that.
+//
+// The class is a hidden class, which is unloaded once the baked list it was compiled for is gone. This library targets
+// java 8, so Lookup.defineHiddenClass() is found reflectively, and nothing is compiled before java 15.
+abstract class CompiledDispatch<E> {
+  // past this, the generated method grows too large for the JIT compiler to compile
+  static final int MAXIMUM_SUBSCRIBERS = 128;
+  private static final @Nullable Method DEFINE_HIDDEN_CLASS = defineHiddenClass();
+  // from the class file format
+  private static final int ACC_FINAL = 0x10;
+  private static final int ACC_SUPER = 0x20;
+  private static final int UTF8 = 1;
+  private static final int CLASS = 7;
+  private static final int FIELDREF = 9;
+  private static final int METHODREF = 10;
+  private static final int INTERFACE_METHODREF = 11;
+  private static final int NAME_AND_TYPE = 12;
+  private static final int ICONST_0 = 0x03;
+  private static final int BIPUSH = 0x10;
+  private static final int ALOAD = 0x19;
+  private static final int ALOAD_0 = 0x2a;
+  private static final int ALOAD_1 = 0x2b;
+  private static final int ALOAD_2 = 0x2c;
+  private static final int ALOAD_3 = 0x2d;
+  private static final int AALOAD = 0x32;
+  private static final int ASTORE = 0x3a;
+  private static final int ASTORE_3 = 0x4e;
+  private static final int IFNE = 0x9a;
+  private static final int GOTO = 0xa7;
+  private static final int ARETURN = 0xb0;
+  private static final int RETURN = 0xb1;
+  private static final int GETFIELD = 0xb4;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int INVOKEINTERFACE = 0xb9;
+  private static final int CHECKCAST = 0xc0;
+  private static final int SAME_LOCALS_1_STACK_ITEM_EXTENDED = 247;
+  private static final int SAME_FRAME_EXTENDED = 251;
+  private static final int ITEM_OBJECT = 7;
+  final EventSubscriber<? super E>[] subscribers;
+
+  CompiledDispatch(final EventSubscriber<? super E>[] subscribers) {
+    this.subscribers = subscribers;
+  }
+
+  private static @Nullable Method defineHiddenClass() {
+    try {
+      final Class<?> options = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+      return MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, Array.newInstance(options, 0).getClass());
+    } catch(final ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  // The baked list compiled for posting events of the given class, or null if it can't be. Each subscriber is invoked
+  // in order, as Dispatcher.dispatch() would for a list without a key index or tiers: a subscriber that doesn't accept
+  // cancelled events checks the event first, and once nothing left accepts cancelled events, a cancelled event is
+  // posted no further. Only for the default acceptor.
+  @SuppressWarnings("unchecked")
+  static <E> @Nullable CompiledDispatch<E> compile(final @NonNull Class<?> event, final @NonNull Baked<E> baked) {
+    final Method define = DEFINE_HIDDEN_CLASS;
+    if(define == null || baked.index != null || baked.subscribers.length == 0 || baked.subscribers.length > MAXIMUM_SUBSCRIBERS) {
+      return null;
+    }
+    final byte[] bytes = generate(baked, Cancellable.class.isAssignableFrom(event));
+    try {
+      final MethodHandles.Lookup lookup = (MethodHandles.Lookup) define.invoke(MethodHandles.lookup(), bytes, false, Array.newInstance(define.getParameterTypes()[2].getComponentType(), 0));
+      return (CompiledDispatch<E>) lookup.lookupClass().getDeclaredConstructor(EventSubscriber[].class).newInstance((Object) baked.subscribers);
+    } catch(final ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  // generated - posts the event, reporting failures to the handler or adding them to what has gone wrong so far
+  abstract Dispatcher.@Nullable Failures post(final @NonNull E event, final @Nullable BiConsumer<? super EventSubscriber<?>, ? super Throwable> handler, final Dispatcher.@Nullable Failures failures);
+
+  // called by the generated code when a subscriber fails
+  final Dispatcher.@NonNull Failures failed(final Dispatcher.@Nullable Failures failures, final @Nullable BiConsumer<? super EventSubscriber<?>, ? super Throwable> handler, final int index, final @NonNull Throwable exception) {
+    return Dispatcher.failed(failures, this.subscribers[index], exception, handler);
+  }
+
+  // The generated class has a constructor handing the subscribers on, and a post() that is unrolled from the loop:
+  //
+  //   if(((Cancellable) event).cancelled()) goto next;    - or goto end, past the last subscriber accepting them
+  //   try {
+  //     this.subscribers[i].on(event);
+  //   } catch(Throwable t) {
+  //     failures = this.failed(failures, handler, i, t);
+  //   }
+  //   next: ...
+  //   end: return failures;
+  private static byte[] generate(final Baked<?> baked, final boolean cancellable) {
+    final Pool pool = new Pool();
+    final String self = internalName(CompiledDispatch.class);
+    final String subscriber = internalName(EventSubscriber.class);
+    final String failures = "L" + internalName(Dispatcher.Failures.class) + ";";
+    final String handler = "L" + internalName(BiConsumer.class) + ";";
+    final int thisClass = pool.type(self + "$Generated");
+    final int superClass = pool.type(self);
+    final int throwable = pool.type(internalName(Throwable.class));
+    final int code = pool.utf8("Code");
+    final int superConstructor = pool.member(METHODREF, self, "<init>", "([L" + subscriber + ";)V");
+    final int subscribers = pool.member(FIELDREF, self, "subscribers", "[L" + subscriber + ";");
+    final int on = pool.member(INTERFACE_METHODREF, subscriber, "on", "(Ljava/lang/Object;)V");
+    final int cancelled = pool.member(INTERFACE_METHODREF, internalName(Cancellable.class), "cancelled", "()Z");
+    final int failed = pool.member(METHODREF, self, "failed", "(" + failures + handler + "IL" + internalName(Throwable.class) + ";)" + failures);
+    final int cancellableClass = pool.type(internalName(Cancellable.class));
+    final int constructorName = pool.utf8("<init>");
+    final int constructorDescriptor = pool.utf8("([L" + subscriber + ";)V");
+    final int postName = pool.utf8("post");
+    final int postDescriptor = pool.utf8("(Ljava/lang/Object;" + handler + failures + ")" + failures);
+    final int stackMapTable = pool.utf8("StackMapTable");
+
+    final Bytes constructor = new Bytes();
+    constructor.u1(ALOAD_0).u1(ALOAD_1).u1(INVOKESPECIAL).u2(superConstructor).u1(RETURN);
+
+    final Bytes post = new Bytes();
+    final Bytes exceptions = new Bytes();
+    // whether each branch target starts with the exception on the stack
+    final Map<Integer, Boolean> frames = new TreeMap<>();
+    final int[] ends = new int[baked.subscribers.length];
+    int ending = 0;
+    for(int i = 0; i < baked.subscribers.length; i++) {
+      int skip = -1;
+      if(cancellable && !baked.acceptsCancelled(i)) {
+        post.u1(ALOAD_1).u1(CHECKCAST).u2(cancellableClass).u1(INVOKEINTERFACE).u2(cancelled).u1(1).u1(0);
+        if(i > baked.lastAcceptingCancelled) {
+          ends[ending++] = post.length();
+        } else {
+          skip = post.length();
+        }
+        post.u1(IFNE).u2(0);
+      }
+      final int start = post.length();
+      post.u1(ALOAD_0).u1(GETFIELD).u2(subscribers).push(i).u1(AALOAD).u1(ALOAD_1).u1(INVOKEINTERFACE).u2(on).u1(2).u1(0);
+      final int end = post.length();
+      post.u1(GOTO).u2(0);
+      final int caught = post.length();
+      post.u1(ASTORE).u1(4).u1(ALOAD_0).u1(ALOAD_3).u1(ALOAD_2).push(i).u1(ALOAD).u1(4).u1(INVOKEVIRTUAL).u2(failed).u1(ASTORE_3);
+      final int next = post.length();
+      post.jump(end, next);
+      if(skip != -1) {
+        post.jump(skip, next);
+      }
+      exceptions.u2(start).u2(end).u2(caught).u2(throwable);
+      frames.put(caught, true);
+      frames.put(next, false);
+    }
+    for(int i = 0; i < ending; i++) {
+      post.jump(ends[i], post.length());
+    }
+    post.u1(ALOAD_3).u1(ARETURN);
+
+    // every frame has the locals of the method's start, so only the stack needs to be described
+    final Bytes stackMap = new Bytes();
+    int previous = -1;
+    for(final Map.Entry<Integer, Boolean> frame : frames.entrySet()) {
+      final int delta = frame.getKey() - previous - 1;
+      if(frame.getValue()) {
+        stackMap.u1(SAME_LOCALS_1_STACK_ITEM_EXTENDED).u2(delta).u1(ITEM_OBJECT).u2(throwable);
+      } else {
+        stackMap.u1(SAME_FRAME_EXTENDED).u2(delta);
+      }
+      previous = frame.getKey();
+    }
+
+    final Bytes type = new Bytes();
+    type.u4(0xcafebabe).u2(0).u2(52);
+    type.u2(pool.count()).bytes(pool.bytes);
+    type.u2(ACC_FINAL | ACC_SUPER).u2(thisClass).u2(superClass).u2(0).u2(0);
+    type.u2(2);
+    // <init>
+    type.u2(0).u2(constructorName).u2(constructorDescriptor).u2(1);
+    type.u2(code).u4(12 + constructor.length()).u2(2).u2(2).u4(constructor.length()).bytes(constructor).u2(0).u2(0);
+    // post
+    type.u2(ACC_FINAL).u2(postName).u2(postDescriptor).u2(1);
+    final int attributes = frames.isEmpty() ? 0 : 8 + stackMap.length();
+    type.u2(code).u4(12 + post.length() + exceptions.length() + attributes).u2(5).u2(5).u4(post.length()).bytes(post);
+    type.u2(exceptions.length() / 8).bytes(exceptions);
+    if(frames.isEmpty()) {
+      type.u2(0);
+    } else {
+      type.u2(1).u2(stackMapTable).u4(2 + stackMap.length()).u2(frames.size()).bytes(stackMap);
+    }
+    type.u2(0);
+    return type.toByteArray();
+  }
+
+  private static String internalName(final Class<?> type) {
+    return type.getName().replace('.', '/');
+  }
+
+  // the constant pool of the generated class
+  private static final class Pool {
+    final Bytes bytes = new Bytes();
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int next = 1;
+
+    int count() {
+      return this.next;
+    }
+
+    int utf8(final String value) {
+      Integer index = this.entries.get("utf8 " + value);
+      if(index == null) {
+        // every name generated here is ascii, where modified utf-8 is just the characters
+        this.bytes.u1(UTF8).u2(value.length());
+        for(int i = 0; i < value.length(); i++) {
+          this.bytes.u1(value.charAt(i));
+        }
+        index = this.add("utf8 " + value);
+      }
+      return index;
+    }
+
+    int type(final String name) {
+      final Integer index = this.entries.get("class " + name);
+      if(index != null) {
+        return index;
+      }
+      final int utf8 = this.utf8(name);
+      this.bytes.u1(CLASS).u2(utf8);
+      return this.add("class " + name);
+    }
+
+    int member(final int tag, final String owner, final String name, final String descriptor) {
+      final String key = tag + " " + owner + "." + name + descriptor;
+      final Integer index = this.entries.get(key);
+      if(index != null) {
+        return index;
+      }
+      final int type = this.type(owner);
+      Integer nameAndType = this.entries.get("nat " + name + descriptor);
+      if(nameAndType == null) {
+        final int nameIndex = this.utf8(name);
+        final int descriptorIndex = this.utf8(descriptor);
+        this.bytes.u1(NAME_AND_TYPE).u2(nameIndex).u2(descriptorIndex);
+        nameAndType = this.add("nat " + name + descriptor);
+      }
+      this.bytes.u1(tag).u2(type).u2(nameAndType);
+      return this.add(key);
+    }
+
+    private int add(final String key) {
+      this.entries.put(key, this.next);
+      return this.next++;
+    }
+  }
+
+  private static final class Bytes {
+    private byte[] bytes = new byte[256];
+    private int length;
+
+    int length() {
+      return this.length;
+    }
+
+    Bytes u1(final int value) {
+      if(this.length == this.bytes.length) {
+        this.bytes = Arrays.copyOf(this.bytes, this.length * 2);
+      }
+      this.bytes[this.length++] = (byte) value;
+      return this;
+    }
+
+    Bytes u2(final int value) {
+      return this.u1(value >>> 8).u1(value);
+    }
+
+    Bytes u4(final int value) {
+      return this.u2(value >>> 16).u2(value);
+    }
+
+    Bytes bytes(final Bytes bytes) {
+      for(int i = 0; i < bytes.length; i++) {
+        this.u1(bytes.bytes[i]);
+      }
+      return this;
+    }
+
+    // pushes an int constant - subscriber indices never need more than a byte
+    Bytes push(final int value) {
+      return value <= 5 ? this.u1(ICONST_0 + value) : this.u1(BIPUSH).u1(value);
+    }
+
+    // points the branch instruction at the given position to the target
+    void jump(final int instruction, final int target) {
+      final int offset = target - instruction;
+      this.bytes[instruction + 1] = (byte) (offset >>> 8);
+      this.bytes[instruction + 2] = (byte) offset;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(this.bytes, this.length);
+    }
+  }
+}
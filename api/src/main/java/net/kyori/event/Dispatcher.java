@@ -0,0 +1,443 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Posts events to their baked subscribers. Every post of a single event goes through dispatch(), and the events of
+// a batch are picked for each subscriber through the same select() and stopped() - so the key index, the early
+// exit for cancelled events, acceptance and the watchdog apply the same way however an event is posted.
+final class Dispatcher<E> {
+  private final Class<E> type;
+  private final EventBus.Accepts<E> accepts;
+  private final boolean standardAccepts;
+  // baked lists are posted to through compiled dispatchers, where they can be
+  private final boolean compiled;
+  private final @Nullable Executor parallelExecutor;
+  private final @Nullable EventMetrics metrics;
+  private final @Nullable SubscriberWatchdog watchdog;
+  // invocations are timed
+  private final boolean monitored;
+  // what invocations are timed with
+  private final LongSupplier ticker;
+  // the bus that quarantined subscribers are dropped from
+  private final ParentEventBus<E> bus;
+
+  Dispatcher(final EventBusImpl.BuilderImpl<E> builder, final ParentEventBus<E> bus) {
+    this.type = builder.type;
+    this.accepts = builder.accepts;
+    this.standardAccepts = builder.accepts == EventBus.Accepts.<E>nonCancelledWhenNotAcceptingCancelled();
+    this.parallelExecutor = builder.parallelExecutor;
+    this.metrics = builder.metrics;
+    this.watchdog = builder.watchdog;
+    this.monitored = builder.metrics != null || builder.watchdog != null;
+    this.compiled = builder.compiledDispatch && this.standardAccepts && !this.monitored && builder.parallelExecutor == null;
+    this.ticker = builder.watchdog != null ? builder.watchdog.ticker : System::nanoTime;
+    this.bus = bus;
+  }
+
+  @NonNull PostResult post(final @NonNull E event, final @NonNull Baked<E> baked) {
+    // fanned out subscribers report from other threads, so they need somewhere to do so up front
+    final Failures failures = this.dispatch(event, baked, null, this.watchdog != null || baked.tiers != null ? new Failures(this.watchdog != null) : null);
+    return failures != null ? failures.result() : PostResult.success();
+  }
+
+  boolean post(final @NonNull E event, final @NonNull Baked<E> baked, final @NonNull BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler) {
+    final Failures failures = this.dispatch(event, baked, exceptionHandler, baked.tiers != null ? new Failures(false) : null);
+    return failures == null || !failures.reported;
+  }
+
+  @SuppressWarnings("unchecked")
+  @NonNull PostResult postAll(final @NonNull Collection<? extends E> events, final @NonNull Function<Class<? extends E>, Baked<E>> dispatched) {
+    if(events.isEmpty()) {
+      return PostResult.success();
+    }
+    // the common case is a batch of a single type, which doesn't need grouping
+    final Class<? extends E> first = (Class<? extends E>) events.iterator().next().getClass();
+    Map<Class<? extends E>, List<E>> groups = null;
+    for(final E event : events) {
+      if(event.getClass() != first) {
+        groups = new LinkedHashMap<>();
+        for(final E grouped : events) {
+          groups.computeIfAbsent((Class<? extends E>) grouped.getClass(), key -> new ArrayList<>()).add(grouped);
+        }
+        break;
+      }
+    }
+    final Failures failures = new Failures(this.watchdog != null);
+    if(groups == null) {
+      this.postAll(first, new ArrayList<>(events), dispatched.apply(first), failures);
+    } else {
+      for(final Map.Entry<Class<? extends E>, List<E>> group : groups.entrySet()) {
+        this.postAll(group.getKey(), group.getValue(), dispatched.apply(group.getKey()), failures);
+      }
+    }
+    return failures.result();
+  }
+
+  // called by the bus before a subscriber is added to it
+  void subscribed(final EventSubscriber<?> subscriber) {
+    if(this.metrics != null) {
+      this.metrics.subscribed(KeyedEventSubscriber.unwrap(subscriber));
+    }
+  }
+
+  // if anything has to be told when a subscriber is removed
+  boolean reportsUnsubscribed() {
+    return this.metrics != null || this.watchdog != null;
+  }
+
+  // called by the bus once a subscriber has been removed from it
+  void unsubscribed(final EventSubscriber<?> subscriber) {
+    final EventSubscriber<?> reported = KeyedEventSubscriber.unwrap(subscriber);
+    if(this.metrics != null) {
+      this.metrics.unsubscribed(reported);
+    }
+    if(this.watchdog != null) {
+      this.watchdog.unsubscribed(reported);
+    }
+  }
+
+  // Posts an event to the subscribers of its baked list, in order - only to those matched by the key index when there
+  // is one, and only until it is cancelled and nothing left would accept it. When the list is tiered for parallel
+  // dispatch, the parallel safe subscribers of each tier are put aside and fanned out once the rest of the tier has
+  // been posted to. A list that is compiled does the same in a class of its own.
+  private @Nullable Failures dispatch(final E event, final Baked<E> baked, final @Nullable BiConsumer<? super EventSubscriber<?>, ? super Throwable> handler, @Nullable Failures failures) {
+    if(this.metrics != null) {
+      this.metrics.posted(event.getClass());
+    }
+    if(this.compiled && baked.index == null) {
+      final CompiledDispatch<E> compiled = baked.compiled(event.getClass());
+      if(compiled != null) {
+        return compiled.post(event, handler, failures);
+      }
+    }
+    final int[] targets = baked.index != null ? baked.index.targets(event) : null;
+    final int count = targets != null ? targets.length : baked.subscribers.length;
+    final Cancellable cancellable = this.cancellable(event);
+    final int[] tiers = baked.tiers;
+    int tier = 0;
+    int[] fanned = null;
+    int pending = 0;
+    for(int j = 0; j < count; j++) {
+      final int target = targets != null ? targets[j] : j;
+      final int i = KeyIndex.position(target);
+      if(this.stopped(cancellable, baked, i)) {
+        break;
+      }
+      if(tiers != null) {
+        if(i >= tiers[tier]) {
+          if(pending != 0) {
+            failures = this.fanOut(event, baked, fanned, pending, handler, failures);
+            pending = 0;
+          }
+          while(i >= tiers[tier]) {
+            tier++;
+          }
+        }
+        if(baked.subscribers[i].parallelSafe()) {
+          if(fanned == null) {
+            fanned = new int[count];
+          }
+          fanned[pending++] = target;
+          continue;
+        }
+      }
+      final EventSubscriber<? super E> subscriber = this.select(event, baked, target);
+      if(subscriber != null) {
+        failures = this.invoke(subscriber, event, handler, failures);
+      }
+    }
+    return pending != 0 ? this.fanOut(event, baked, fanned, pending, handler, failures) : failures;
+  }
+
+  private @Nullable Failures fanOut(final E event, final Baked<E> baked, final int @Nullable [] targets, final int count, final @Nullable BiConsumer<? super EventSubscriber<?>, ? super Throwable> handler, final @Nullable Failures failures) {
+    List<CompletableFuture<?>> tasks = null;
+    EventSubscriber<? super E> last = null;
+    for(int j = 0; j < count; j++) {
+      final EventSubscriber<? super E> subscriber = this.select(event, baked, targets[j]);
+      if(subscriber != null) {
+        if(last != null) {
+          final EventSubscriber<? super E> previous = last;
+          if(tasks == null) {
+            tasks = new ArrayList<>();
+          }
+          tasks.add(CompletableFuture.runAsync(() -> this.invoke(previous, event, handler, failures), this.parallelExecutor));
+        }
+        last = subscriber;
+      }
+    }
+    if(last != null) {
+      this.invoke(last, event, handler, failures); // no need to hand the last one off, this thread would only be waiting
+    }
+    if(tasks != null) {
+      CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+    }
+    return failures;
+  }
+
+  // Each subscriber is posted every event of the batch that it is picked for before the next subscriber is, and
+  // batch subscribers are posted all of them at once.
+  private void postAll(final Class<? extends E> type, final List<? extends E> events, final Baked<E> baked, final Failures failures) {
+    if(this.metrics != null) {
+      for(int i = 0; i < events.size(); i++) {
+        this.metrics.posted(type);
+      }
+    }
+    // the targets of each event, walked through in step with the subscribers
+    final int[][] targets = baked.index != null ? new int[events.size()][] : null;
+    final int[] cursors = targets != null ? new int[events.size()] : null;
+    if(targets != null) {
+      for(int j = 0; j < targets.length; j++) {
+        targets[j] = baked.index.targets(events.get(j));
+      }
+    }
+    for(int i = 0; i < baked.subscribers.length; i++) {
+      final EventSubscriber<? super E> subscriber = baked.direct[i];
+      List<E> batch = null;
+      for(int j = 0; j < events.size(); j++) {
+        final E event = events.get(j);
+        int target = i;
+        if(targets != null) {
+          if(cursors[j] == targets[j].length || KeyIndex.position(targets[j][cursors[j]]) != i) {
+            continue;
+          }
+          target = targets[j][cursors[j]++];
+        }
+        if(this.stopped(this.cancellable(event), baked, i)) {
+          continue;
+        }
+        final EventSubscriber<? super E> selected = this.select(event, baked, target);
+        if(selected == subscriber && subscriber instanceof BatchEventSubscriber<?>) {
+          if(batch == null) {
+            batch = new ArrayList<>(events.size() - j);
+          }
+          batch.add(event);
+        } else if(selected != null) {
+          this.invoke(selected, event, null, failures);
+        }
+      }
+      if(batch != null) {
+        this.invokeBatch(type, subscriber, batch, failures);
+      }
+    }
+  }
+
+  // the event, if posting it may stop early once it is cancelled - only the default acceptor is known to skip
+  // every subscriber that doesn't accept cancelled events, and nothing else
+  private @Nullable Cancellable cancellable(final E event) {
+    return this.standardAccepts && event instanceof Cancellable ? (Cancellable) event : null;
+  }
+
+  // if the event is cancelled, and nothing from position i on would accept it
+  private boolean stopped(final @Nullable Cancellable cancellable, final Baked<E> baked, final int i) {
+    return cancellable != null && i > baked.lastAcceptingCancelled && cancellable.cancelled();
+  }
+
+  // the subscriber to invoke for a target of the baked list, or null if it does not accept the event
+  private @Nullable EventSubscriber<? super E> select(final E event, final Baked<E> baked, final int target) {
+    final int i = KeyIndex.position(target);
+    if(!this.accepts(event, baked, i)) {
+      if(this.metrics != null) {
+        this.metrics.rejected(event.getClass(), baked.direct[i]);
+      }
+      return null;
+    }
+    return KeyIndex.undecided(target) ? baked.subscribers[i] : baked.direct[i];
+  }
+
+  private boolean accepts(final E event, final Baked<E> baked, final int i) {
+    if(this.standardAccepts) {
+      // the default acceptor, without having to ask the subscriber
+      return baked.acceptsCancelled(i) || !(event instanceof Cancellable) || !((Cancellable) event).cancelled();
+    }
+    return this.accepts.accepts(this.type, event, baked.subscribers[i]);
+  }
+
+  private @Nullable Failures invoke(final EventSubscriber<? super E> subscriber, final E event, final @Nullable BiConsumer<? super EventSubscriber<?>, ? super Throwable> handler, @Nullable Failures failures) {
+    if(!this.monitored) {
+      try {
+        subscriber.on(event);
+      } catch(final Throwable t) {
+        failures = failed(failures, KeyedEventSubscriber.unwrap(subscriber), t, handler);
+      }
+      return failures;
+    }
+    final EventSubscriber<?> reported = KeyedEventSubscriber.unwrap(subscriber);
+    if(this.watchdog != null && this.watchdog.detached(reported)) {
+      this.watchdog.quarantineExecutor.execute(() -> this.invokeDetached(event.getClass(), reported, () -> subscriber.on(event)));
+      return failures;
+    }
+    final long start = this.ticker.getAsLong();
+    try {
+      subscriber.on(event);
+    } catch(final Throwable t) {
+      if(this.metrics != null) {
+        this.metrics.failed(event.getClass(), reported, t);
+      }
+      failures = failed(failures, reported, t, handler);
+    }
+    this.invoked(event.getClass(), reported, this.ticker.getAsLong() - start, failures);
+    return failures;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void invokeBatch(final Class<?> type, final EventSubscriber<? super E> subscriber, final List<E> events, final Failures failures) {
+    final BatchEventSubscriber<? super E> batched = (BatchEventSubscriber<? super E>) subscriber;
+    final List<E> batch = Collections.unmodifiableList(events);
+    if(this.watchdog != null && this.watchdog.detached(subscriber)) {
+      this.watchdog.quarantineExecutor.execute(() -> this.invokeDetached(type, subscriber, () -> batched.onBatch(batch)));
+      return;
+    }
+    final long start = this.monitored ? this.ticker.getAsLong() : 0;
+    try {
+      batched.onBatch(batch);
+    } catch(final Throwable t) {
+      if(this.metrics != null) {
+        this.metrics.failed(type, subscriber, t);
+      }
+      failures.add(subscriber, t);
+    }
+    if(this.monitored) {
+      this.invoked(type, subscriber, this.ticker.getAsLong() - start, failures);
+    }
+  }
+
+  private void invoked(final Class<?> event, final EventSubscriber<?> subscriber, final long nanos, final @Nullable Failures failures) {
+    if(this.metrics != null) {
+      this.metrics.invoked(event, subscriber, nanos);
+    }
+    final SubscriberWatchdog watchdog = this.watchdog;
+    if(watchdog != null && watchdog.overran(subscriber, nanos)) {
+      if(failures != null) {
+        failures.overran(subscriber, nanos);
+      }
+      if(watchdog.quarantine(subscriber) && watchdog.drops()) {
+        this.bus.drop(candidate -> candidate == subscriber);
+      }
+    }
+  }
+
+  // quarantined subscribers are no longer waited for, so their exceptions can't be reported to the poster
+  private void invokeDetached(final Class<?> event, final EventSubscriber<?> subscriber, final Invocation invocation) {
+    try {
+      invocation.invoke();
+    } catch(final Throwable t) {
+      if(this.metrics != null) {
+        this.metrics.failed(event, subscriber, t);
+      }
+      final Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+    }
+  }
+
+  static @NonNull Failures failed(final @Nullable Failures failures, final EventSubscriber<?> subscriber, final Throwable exception, final @Nullable BiConsumer<? super EventSubscriber<?>, ? super Throwable> handler) {
+    if(handler != null) {
+      handler.accept(subscriber, exception);
+      if(failures == null) {
+        return Failures.REPORTED;
+      }
+      failures.reported();
+      return failures;
+    }
+    final Failures created = failures != null ? failures : new Failures(false);
+    created.add(subscriber, exception);
+    return created;
+  }
+
+  @FunctionalInterface
+  private interface Invocation {
+    void invoke() throws Throwable;
+  }
+
+  // What went wrong during a post. Only created once something does, unless the post is watched or fanned out - and
+  // as most posts that fail only have a single failure, that one is kept without a map.
+  static final class Failures {
+    // for posts whose exceptions are handed to a handler, and not kept
+    static final Failures REPORTED = new Failures(false, true);
+    private @Nullable EventSubscriber<?> failed;
+    private @Nullable Throwable failure;
+    private @Nullable Map<EventSubscriber<?>, Throwable> exceptions;
+    private final @Nullable Map<EventSubscriber<?>, Duration> overruns;
+    volatile boolean reported;
+
+    Failures(final boolean watched) {
+      this(watched, false);
+    }
+
+    private Failures(final boolean watched, final boolean reported) {
+      this.overruns = watched ? new HashMap<>() : null;
+      this.reported = reported;
+    }
+
+    // a subscriber that fails more than once keeps its first exception, which suppresses the rest
+    synchronized void add(final EventSubscriber<?> subscriber, final Throwable exception) {
+      this.reported = true;
+      if(this.exceptions == null) {
+        if(this.failed == null) {
+          this.failed = subscriber;
+          this.failure = exception;
+          return;
+        }
+        this.exceptions = Internals.collect(null, this.failed, this.failure);
+      }
+      Internals.collect(this.exceptions, subscriber, exception);
+    }
+
+    void reported() {
+      if(!this.reported) {
+        this.reported = true;
+      }
+    }
+
+    synchronized void overran(final EventSubscriber<?> subscriber, final long nanos) {
+      if(this.overruns != null) {
+        this.overruns.merge(subscriber, Duration.ofNanos(nanos), (a, b) -> a.compareTo(b) >= 0 ? a : b);
+      }
+    }
+
+    synchronized @NonNull PostResult result() {
+      if(this.overruns != null) {
+        return PostResult.watched(this.exceptions != null ? this.exceptions : this.failed != null ? Internals.collect(null, this.failed, this.failure) : Collections.emptyMap(), this.overruns);
+      } else if(this.exceptions != null) {
+        return PostResult.ownedFailure(this.exceptions);
+      }
+      return this.failed != null ? PostResult.failure(this.failed, this.failure) : PostResult.success();
+    }
+  }
+}
@@ -23,8 +23,19 @@
  */
 package net.kyori.event;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * An event bus.
@@ -54,7 +65,19 @@ public interface EventBus<E> {
    * @since 5.0.0
    */
   static <E> @NonNull EventBus<E> create(final @NonNull Class<E> type, final @NonNull Accepts<E> accepts) {
-    return new EventBusImpl<>(type, accepts);
+    return builder(type).accepts(accepts).build();
+  }
+
+  /**
+   * Creates a builder for an event bus.
+   *
+   * @param type the event type
+   * @param <E> the event type
+   * @return a builder
+   * @since 5.0.0
+   */
+  static <E> @NonNull Builder<E> builder(final @NonNull Class<E> type) {
+    return new EventBusImpl.BuilderImpl<>(type);
   }
 
   /**
@@ -76,9 +99,111 @@ public interface EventBus<E> {
    */
   @NonNull PostResult post(final @NonNull E event);
 
+  /**
+   * Posts an event to all registered subscribers, only creating it if it has subscribers.
+   *
+   * <p>The event is only created if {@code type} is {@link #subscribed(Class) subscribed} to, which avoids
+   * building events that nobody listens to. Subscribers registered to subclasses of {@code type} alone
+   * are not considered, so {@code event} should create an instance of exactly {@code type}.</p>
+   *
+   * @param type the event type
+   * @param event a supplier creating the event
+   * @param <T> the event type
+   * @return the post result of the operation
+   * @since 5.0.0
+   */
+  default <T extends E> @NonNull PostResult post(final @NonNull Class<T> type, final @NonNull Supplier<? extends T> event) {
+    if(!this.subscribed(type)) {
+      return PostResult.success();
+    }
+    return this.post(event.get());
+  }
+
+  /**
+   * Posts an event to all registered subscribers, reporting exceptions thrown by subscribers to the {@code exceptionHandler}.
+   *
+   * <p>Unlike {@link #post(Object)}, no result is created. The handler is called once for each exception,
+   * as it is thrown - with {@link Builder#parallelDispatch(Executor) parallel dispatch}, it may be called
+   * from several threads at once.</p>
+   *
+   * @param event the event
+   * @param exceptionHandler the exception handler
+   * @return {@code true} if no subscriber threw an exception, {@code false} otherwise
+   * @since 5.0.0
+   */
+  default boolean post(final @NonNull E event, final @NonNull BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler) {
+    final PostResult result = this.post(event);
+    result.exceptions().forEach(exceptionHandler);
+    return result.wasSuccessful();
+  }
+
+  /**
+   * Posts a batch of events to all registered subscribers.
+   *
+   * <p>Events are grouped by their class, and the subscribers for each class are only looked up once.
+   * Within a group, each subscriber is called with every event before the next subscriber is, so every
+   * event still reaches its subscribers in {@link EventSubscriber#postOrder() post order} and with the
+   * usual acceptance rules. {@link BatchEventSubscriber}s are called once per group.</p>
+   *
+   * <p>The result aggregates the whole batch: if a subscriber throws for several events, the first
+   * exception is reported and the rest are {@link Throwable#addSuppressed(Throwable) suppressed} by it.</p>
+   *
+   * @param events the events
+   * @return the post result of the operation
+   * @since 5.0.0
+   */
+  default @NonNull PostResult postAll(final @NonNull Collection<? extends E> events) {
+    Map<EventSubscriber<?>, Throwable> exceptions = null;
+    for(final E event : events) {
+      final PostResult result = this.post(event);
+      if(!result.wasSuccessful()) {
+        for(final Map.Entry<EventSubscriber<?>, Throwable> entry : result.exceptions().entrySet()) {
+          exceptions = Internals.collect(exceptions, entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return exceptions == null ? PostResult.success() : PostResult.ownedFailure(exceptions);
+  }
+
+  /**
+   * Posts an event to all registered subscribers, asynchronously.
+   *
+   * <p>The event is posted using the {@link Builder#asyncExecutor(Executor) executor} of this bus.</p>
+   *
+   * @param event the event
+   * @return a future completed with the post result of the operation
+   * @see #postAsync(Object, Executor)
+   * @since 5.0.0
+   */
+  default @NonNull CompletableFuture<PostResult> postAsync(final @NonNull E event) {
+    return this.postAsync(event, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Posts an event to all registered subscribers, asynchronously.
+   *
+   * <p>Subscribers are called one after another on a single thread provided by the {@code executor},
+   * in the same order and with the same acceptance rules as {@link #post(Object)} - so a subscriber
+   * still observes the cancellation state left by the subscribers before it. The event should not
+   * be modified by the caller until the returned future completes.</p>
+   *
+   * @param event the event
+   * @param executor the executor to post on
+   * @return a future completed with the post result of the operation
+   * @see PostExecutors
+   * @since 5.0.0
+   */
+  default @NonNull CompletableFuture<PostResult> postAsync(final @NonNull E event, final @NonNull Executor executor) {
+    return CompletableFuture.supplyAsync(() -> this.post(event), executor);
+  }
+
   /**
    * Determines whether or not the specified event has been subscribed to.
    *
+   * <p>This never takes a lock, and never bakes the event type: a type that has already been baked is
+   * answered in constant time, and any other by the number of subscribers registered to each class
+   * in its ancestry.</p>
+   *
    * @param type the event type
    * @return {@code true} if the event has subscribers, {@code false} otherwise
    * @since 5.0.0
@@ -96,6 +221,117 @@ public interface EventBus<E> {
    */
   <T extends E> @NonNull EventSubscription subscribe(final @NonNull Class<T> event, final @NonNull EventSubscriber<? super T> subscriber);
 
+  /**
+   * Registers every subscriber of a {@link SubscriptionGroup group} to receive events.
+   *
+   * <p>The subscribers are registered as a single batch, and the returned subscription unregisters all of
+   * them as a single batch.</p>
+   *
+   * @param group the group
+   * @return a subscription for the whole group
+   * @since 5.0.0
+   */
+  default @NonNull EventSubscription subscribe(final @NonNull SubscriptionGroup<E> group) {
+    final EventSubscription[] subscriptions = new EventSubscription[group.size()];
+    for(int i = 0; i < subscriptions.length; i++) {
+      subscriptions[i] = this.subscribe(group.type(i), group.subscriber(i));
+    }
+    return () -> {
+      for(final EventSubscription subscription : subscriptions) {
+        subscription.unsubscribe();
+      }
+    };
+  }
+
+  /**
+   * Registers the given {@code subscriber} to receive events with a particular key.
+   *
+   * <p>The subscriber only receives events for which {@code extractor} returns a key
+   * {@link Object#equals(Object) equal} to {@code key}. Keyed subscribers are indexed by key, so
+   * posting an event only looks at the subscribers with a matching key, however many others there are.
+   * Subscribers sharing the same {@code extractor} instance share an index, so the key is only
+   * extracted once per post.</p>
+   *
+   * @param event the event type
+   * @param extractor the function extracting the key of an event
+   * @param key the key
+   * @param subscriber the subscriber
+   * @param <T> the event type
+   * @param <K> the key type
+   * @return the subscription
+   * @since 5.0.0
+   */
+  default <T extends E, K> @NonNull EventSubscription subscribe(final @NonNull Class<T> event, final @NonNull Function<? super T, ? extends K> extractor, final @NonNull K key, final @NonNull EventSubscriber<? super T> subscriber) {
+    return this.subscribe(event, new KeyedEventSubscriber<T>(requireNonNull(extractor, "extractor"), requireNonNull(key, "key"), requireNonNull(subscriber, "subscriber")));
+  }
+
+  /**
+   * Registers the given {@code subscriber} to receive events for as long as {@code listener} is reachable.
+   *
+   * <p>The bus only holds the listener weakly. Once the listener has been garbage collected, the subscriber
+   * is unsubscribed the next time it would be posted to, or when the bus next notices - there is no need
+   * to {@link EventSubscription#unsubscribe() unsubscribe} it. Subscribers registered any other way are
+   * held strongly, and are not affected.</p>
+   *
+   * @param event the event type
+   * @param listener the listener
+   * @param subscriber the subscriber, which must not refer to the listener itself
+   * @param <T> the event type
+   * @param <L> the listener type
+   * @return an event subscription
+   * @since 5.0.0
+   */
+  default <T extends E, L> @NonNull EventSubscription subscribeWeakly(final @NonNull Class<T> event, final @NonNull L listener, final @NonNull WeakEventSubscriber<? super L, ? super T> subscriber) {
+    final WeakSubscriber<L, T> weak = new WeakSubscriber<>(requireNonNull(listener, "listener"), requireNonNull(subscriber, "subscriber"), null);
+    final EventSubscription subscription = this.subscribe(event, weak);
+    weak.subscribed(subscription);
+    return subscription;
+  }
+
+  /**
+   * Registers the {@link Subscribe subscriber methods} of a listener.
+   *
+   * <p>Subscriber methods are subscribed through the {@link ListenerAdapter adapters} generated for the
+   * class of the listener and its superclasses. Adapters are looked up once per class, and they call the
+   * subscriber methods directly.</p>
+   *
+   * @param listener the listener
+   * @return a subscription for all of the subscriber methods
+   * @throws IllegalArgumentException if the listener has no generated adapter, or an event type of the listener is not an event of this bus
+   * @since 5.0.0
+   */
+  default @NonNull EventSubscription register(final @NonNull Object listener) {
+    return ListenerAdapters.register(this, requireNonNull(listener, "listener"));
+  }
+
+  /**
+   * Bakes the subscribers of the given event types ahead of their first post.
+   *
+   * <p>The first post of an event type resolves its ancestry and sorts the subscribers of every ancestor,
+   * while holding the lock of that type. Prebaking moves that cost to a time of the caller's choosing, such
+   * as startup or reload, and the baked subscribers are kept up to date as subscriptions change. Types
+   * beyond the {@link Builder#maximumBakedTypes(int) maximum} may be evicted again.</p>
+   *
+   * @param types the event types
+   * @throws IllegalArgumentException if a type is not an event of this bus
+   * @see Builder#backgroundBaking(Executor)
+   * @since 5.0.0
+   */
+  void prebake(final @NonNull Collection<? extends Class<? extends E>> types);
+
+  /**
+   * Creates a child of this bus, which inherits its subscribers.
+   *
+   * <p>A child shares the configuration of this bus, but has subscribers of its own - such as those of a
+   * single world, room or session. Its subscribers are merged with those of this bus for each event type,
+   * and the merge is only redone when the subscribers of either change. A child without subscribers
+   * of its own posts to those of this bus at no extra cost.</p>
+   *
+   * @return a child bus
+   * @since 5.0.0
+   */
+  @NonNull ChildEventBus<E> child();
+
   /**
    * Unregisters all subscribers matching the {@code predicate}.
    *
@@ -104,6 +340,18 @@ public interface EventBus<E> {
    */
   void unsubscribeIf(final @NonNull Predicate<EventSubscriber<? super E>> predicate);
 
+  /**
+   * Discards everything this bus has cached for classes loaded by {@code loader}.
+   *
+   * <p>The bus only holds classes weakly, so this is not needed for a class loader to be unloaded - but
+   * calling it when discarding a class loader frees the memory straight away. Subscribers registered to
+   * those classes are kept, and should be {@link #unsubscribeIf(Predicate) unsubscribed} first.</p>
+   *
+   * @param loader the class loader
+   * @since 5.0.0
+   */
+  void purge(final @NonNull ClassLoader loader);
+
   /**
    * An acceptor.
    *
@@ -118,15 +366,9 @@ public interface EventBus<E> {
      * @return the default acceptor
      * @since 5.0.0
      */
+    @SuppressWarnings("unchecked")
     static <E> @NonNull Accepts<E> nonCancelledWhenNotAcceptingCancelled() {
-      return (type, event, subscriber) -> {
-        if(!subscriber.acceptsCancelled()) {
-          if(event instanceof Cancellable && ((Cancellable) event).cancelled()) {
-            return false;
-          }
-        }
-        return true;
-      };
+      return (Accepts<E>) Internals.NON_CANCELLED_WHEN_NOT_ACCEPTING_CANCELLED;
     }
 
     /**
@@ -140,4 +382,135 @@ public interface EventBus<E> {
      */
     boolean accepts(final Class<E> type, final @NonNull E event, final @NonNull EventSubscriber<? super E> subscriber);
   }
+
+  /**
+   * A builder for an event bus.
+   *
+   * @param <E> the event type
+   * @since 5.0.0
+   */
+  interface Builder<E> {
+    /**
+     * Sets the acceptor.
+     *
+     * <p>Defaults to {@link Accepts#nonCancelledWhenNotAcceptingCancelled()}.</p>
+     *
+     * @param accepts the acceptor
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> accepts(final @NonNull Accepts<E> accepts);
+
+    /**
+     * Sets if subscribers should be posted to through compiled dispatchers.
+     *
+     * <p>When enabled, the subscribers of an event type are compiled into a class of their own the first
+     * time they are posted to, which invokes each of them from a call site of its own. A loop over the
+     * subscribers calls every one of them from the same call site, which sees too many classes for the
+     * JIT compiler to inline any of them. A compiled dispatcher can have each subscriber inlined, and leaves
+     * out the cancellation check for every subscriber that accepts cancelled events, or when the event is
+     * not {@link Cancellable}.</p>
+     *
+     * <p>Compiling needs hidden classes, which are only available from Java 15. Subscribers are posted to as
+     * usual on older runtimes, and when the bus has {@link #metrics(EventMetrics) metrics}, a
+     * {@link #watchdog(SubscriberWatchdog) watchdog}, {@link #parallelDispatch(Executor) parallel dispatch}
+     * or an acceptor other than the {@link Accepts#nonCancelledWhenNotAcceptingCancelled() default}. They
+     * are also posted to as usual for event types with keyed subscribers or more than 128 subscribers, and
+     * by {@link EventBus#postAll(Collection)}.</p>
+     *
+     * <p>Defaults to {@code false}.</p>
+     *
+     * @param compiledDispatch if compiled dispatch should be used
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> compiledDispatch(final boolean compiledDispatch);
+
+    /**
+     * Sets the executor used by {@link EventBus#postAsync(Object)}.
+     *
+     * <p>Defaults to {@link ForkJoinPool#commonPool()}.</p>
+     *
+     * @param executor the executor
+     * @return this builder
+     * @see PostExecutors
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> asyncExecutor(final @NonNull Executor executor);
+
+    /**
+     * Sets the executor used to call {@link EventSubscriber#parallelSafe() parallel safe} subscribers in parallel.
+     *
+     * <p>When set, the subscribers for an event are split into tiers of subscribers that share a
+     * {@link EventSubscriber#postOrder() post order}. Tiers are still posted to in order, and a tier
+     * only starts once every subscriber in the tier before it has returned. Within a tier, subscribers
+     * that are not parallel safe are called first, one after another, on the posting thread; the
+     * parallel safe subscribers are then called concurrently using the {@code executor}.</p>
+     *
+     * <p>Defaults to {@code null}, where every subscriber is called on the posting thread.</p>
+     *
+     * @param executor the executor, such as {@link ForkJoinPool#commonPool()}, or {@code null} to disable parallel dispatch
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> parallelDispatch(final @Nullable Executor executor);
+
+    /**
+     * Sets the metrics that the bus reports to.
+     *
+     * <p>Defaults to {@code null}, where nothing is measured and posting pays no cost for it.</p>
+     *
+     * @param metrics the metrics, such as an {@link EventMetrics#recorder() in memory recorder}, or {@code null} to disable metrics
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> metrics(final @Nullable EventMetrics metrics);
+
+    /**
+     * Sets the watchdog that times subscribers against their budget.
+     *
+     * <p>Defaults to {@code null}, where subscribers may take as long as they like.</p>
+     *
+     * @param watchdog the watchdog, or {@code null} to disable it
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> watchdog(final @Nullable SubscriberWatchdog watchdog);
+
+    /**
+     * Sets the maximum number of event types whose subscribers are kept baked.
+     *
+     * <p>When a new type is baked beyond the limit, the type that was baked longest ago is evicted, and will
+     * be baked again the next time it is posted. Defaults to no limit.</p>
+     *
+     * @param maximum the maximum number of baked event types
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> maximumBakedTypes(final int maximum);
+
+    /**
+     * Sets the executor that bakes the subscribers of an event type in the background once it is subscribed to.
+     *
+     * <p>Without it, an event type is baked by its first post. With it, subscribing to a type that has not
+     * been baked yet hands the baking to the {@code executor}, so the first post usually finds it done.
+     * Subclasses of the subscribed type are still baked by their first post, unless they are
+     * {@link EventBus#prebake(Collection) prebaked}.</p>
+     *
+     * <p>Defaults to {@code null}, where nothing is baked ahead of time.</p>
+     *
+     * @param executor the executor, or {@code null} to disable background baking
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> backgroundBaking(final @Nullable Executor executor);
+
+    /**
+     * Builds the event bus.
+     *
+     * @return an event bus
+     * @since 5.0.0
+     */
+    @NonNull EventBus<E> build();
+  }
 }
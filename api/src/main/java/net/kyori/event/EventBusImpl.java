@@ -23,28 +23,80 @@
  */
 package net.kyori.event;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-final class EventBusImpl<E> implements EventBus<E> {
+import static java.util.Objects.requireNonNull;
+
+// Every class has a slot of its own, and every slot is its own lock - so that subscription changes and baking for
+// unrelated classes never contend. A change is published to the slot it was registered to, and then brought into each
+// baked slot whose ancestry contains it, one at a time. Each baked slot remembers the subscriber arrays it was baked
+// from, which tells it whether a change is already in, can be patched in, or has to be baked again. The only locks
+// ever held together are those of a slot and of its ancestry, taken in that order, when it is baked or unbaked.
+final class EventBusImpl<E> implements ParentEventBus<E> {
   private static final Comparator<EventSubscriber<?>> COMPARATOR = Comparator.comparingInt(EventSubscriber::postOrder);
-  private final Map<Class<? extends E>, Collection<? extends Class<?>>> classes = new HashMap<>();
-  private final Map<Class<? extends E>, List<EventSubscriber<? super E>>> unbaked = new HashMap<>();
-  private final Map<Class<? extends E>, List<EventSubscriber<? super E>>> baked = new HashMap<>();
-  private final Object lock = new Object();
+  private static final EventSubscriber<?>[] EMPTY = new EventSubscriber<?>[0];
+  private final ClassValue<Slot<E>> slots = new ClassValue<Slot<E>>() {
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Slot<E> computeValue(final Class<?> type) {
+      return new Slot<>((Class<? extends E>) type);
+    }
+  };
+  // slots with subscribers registered to them
+  private final Set<Slot<E>> registered = ConcurrentHashMap.newKeySet();
+  // guards the eviction bookkeeping below, and nothing else
+  private final Object evictions = new Object();
+  // baked slots, oldest first - held weakly, so that classes can still be unloaded
+  private final Deque<WeakReference<Slot<E>>> bakeOrder = new ArrayDeque<>();
+  private final ReferenceQueue<Slot<E>> collected = new ReferenceQueue<>();
+  private int bakedSlots;
+  private final int maximumBaked;
+  // listeners of weak subscribers that have been collected
+  private final ReferenceQueue<Object> expired = new ReferenceQueue<>();
+  // the number of subscriptions - lets an empty bus answer without looking at any slot
+  private final AtomicInteger subscriptions = new AtomicInteger();
   private final Class<E> type;
-  private final Accepts<E> accepts;
+  private final Executor asyncExecutor;
+  private final @Nullable Executor parallelExecutor;
+  private final @Nullable EventMetrics metrics;
+  private final @Nullable Executor bakeExecutor;
+  private final BuilderImpl<E> builder;
+  private final Dispatcher<E> dispatcher;
 
-  EventBusImpl(final Class<E> type, final Accepts<E> accepts) {
-    this.type = type;
-    this.accepts = accepts;
+  EventBusImpl(final BuilderImpl<E> builder) {
+    this.builder = builder;
+    this.type = builder.type;
+    this.asyncExecutor = builder.asyncExecutor;
+    this.parallelExecutor = builder.parallelExecutor;
+    this.metrics = builder.metrics;
+    this.bakeExecutor = builder.bakeExecutor;
+    this.maximumBaked = builder.maximumBaked;
+    this.dispatcher = new Dispatcher<>(builder, this);
   }
 
   @Override
@@ -55,91 +107,673 @@ final class EventBusImpl<E> implements EventBus<E> {
   @Override
   @SuppressWarnings("unchecked")
   public @NonNull PostResult post(@NonNull final E event) {
-    Map<EventSubscriber<?>, Throwable> exceptions = null; // save on an allocation
-    final List<EventSubscriber<? super E>> subscribers = this.subscribers((Class<? extends E>) event.getClass());
-    for(final EventSubscriber<? super E> subscriber : subscribers) {
-      if(this.accepts(event, subscriber)) {
-        try {
-          subscriber.on(event);
-        } catch(final Throwable t) {
-          if(exceptions == null) {
-            exceptions = new HashMap<>();
+    return this.dispatcher.post(event, this.dispatched((Class<? extends E>) event.getClass()));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean post(final @NonNull E event, final @NonNull BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler) {
+    return this.dispatcher.post(event, this.dispatched((Class<? extends E>) event.getClass()), exceptionHandler);
+  }
+
+  @Override
+  public @NonNull PostResult postAll(final @NonNull Collection<? extends E> events) {
+    return this.dispatcher.postAll(events, this::dispatched);
+  }
+
+  @Override
+  public @NonNull CompletableFuture<PostResult> postAsync(final @NonNull E event) {
+    return this.postAsync(event, this.asyncExecutor);
+  }
+
+  @Override
+  public boolean subscribed(final @NonNull Class<? extends E> type) {
+    if(this.subscriptions.get() == 0) {
+      return false;
+    }
+    final Baked<E> baked = this.slots.get(type).baked;
+    if(baked != null) {
+      return baked.subscribers.length != 0;
+    }
+    // not worth baking (or taking a lock) just to answer this - the subscribers registered to its ancestry are enough
+    for(final Class<?> ancestor : Internals.ancestors(type)) {
+      if(this.type.isAssignableFrom(ancestor) && this.slots.get(ancestor).subscribers.length != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T extends E> @NonNull EventSubscription subscribe(final @NonNull Class<T> event, final @NonNull EventSubscriber<? super T> subscriber) {
+    final EventSubscriber<? super E> erased = (EventSubscriber<? super E>) subscriber;
+    this.dispatcher.subscribed(erased);
+    Slot<E> current;
+    EventSubscriber<? super E>[] before;
+    EventSubscriber<? super E>[] after;
+    List<Slot<E>> dependents;
+    while(true) {
+      current = this.slots.get(event);
+      synchronized(current) {
+        if(current.purged) {
+          continue; // no longer the slot of its class
+        }
+        before = current.subscribers;
+        after = Arrays.copyOf(before, before.length + 1);
+        after[before.length] = erased;
+        this.publish(current, after);
+        dependents = dependents(current);
+        break;
+      }
+    }
+    final Slot<E> slot = current;
+    this.subscriptions.incrementAndGet();
+    for(final Slot<E> dependent : dependents) {
+      this.patch(dependent, slot, before, after, before.length, erased);
+    }
+    this.bakeLater(event);
+    WeakSubscriber.expire(this.expired);
+    return () -> {
+      final EventSubscriber<? super E>[] unsubscribedBefore;
+      final EventSubscriber<? super E>[] unsubscribedAfter;
+      final List<Slot<E>> unsubscribedDependents;
+      final int index;
+      synchronized(slot) {
+        unsubscribedBefore = slot.subscribers;
+        index = Arrays.asList(unsubscribedBefore).indexOf(erased);
+        if(index == -1) {
+          return;
+        }
+        unsubscribedAfter = newArray(unsubscribedBefore.length - 1);
+        System.arraycopy(unsubscribedBefore, 0, unsubscribedAfter, 0, index);
+        System.arraycopy(unsubscribedBefore, index + 1, unsubscribedAfter, index, unsubscribedAfter.length - index);
+        this.publish(slot, unsubscribedAfter);
+        unsubscribedDependents = dependents(slot);
+      }
+      this.subscriptions.decrementAndGet();
+      this.dispatcher.unsubscribed(erased);
+      for(final Slot<E> dependent : unsubscribedDependents) {
+        this.patch(dependent, slot, unsubscribedBefore, unsubscribedAfter, index, null);
+      }
+    };
+  }
+
+  @Override
+  public @NonNull EventSubscription subscribe(final @NonNull SubscriptionGroup<E> group) {
+    // the subscribers of the group for each class, in the order they were added
+    final Map<Class<? extends E>, List<EventSubscriber<? super E>>> types = new LinkedHashMap<>();
+    for(int i = 0; i < group.size(); i++) {
+      types.computeIfAbsent(group.type(i), type -> new ArrayList<>()).add(group.subscriber(i));
+      this.dispatcher.subscribed(group.subscriber(i));
+    }
+    final Map<Slot<E>, List<EventSubscriber<? super E>>> registrations = new LinkedHashMap<>();
+    final Set<Slot<E>> dirty = new HashSet<>();
+    for(final Map.Entry<Class<? extends E>, List<EventSubscriber<? super E>>> entry : types.entrySet()) {
+      final List<EventSubscriber<? super E>> subscribers = entry.getValue();
+      while(true) {
+        final Slot<E> slot = this.slots.get(entry.getKey());
+        synchronized(slot) {
+          if(slot.purged) {
+            continue; // no longer the slot of its class
+          }
+          final EventSubscriber<? super E>[] before = slot.subscribers;
+          final EventSubscriber<? super E>[] after = Arrays.copyOf(before, before.length + subscribers.size());
+          for(int i = 0; i < subscribers.size(); i++) {
+            after[before.length + i] = subscribers.get(i);
           }
-          exceptions.put(subscriber, t);
+          this.publish(slot, after);
+          dirty.addAll(dependents(slot));
+          registrations.put(slot, subscribers);
+          break;
         }
       }
     }
-    if(exceptions == null) {
-      return PostResult.success();
+    this.subscriptions.addAndGet(group.size());
+    this.rebakeAll(dirty);
+    for(final Slot<E> slot : registrations.keySet()) {
+      this.bakeLater(slot.type);
+    }
+    WeakSubscriber.expire(this.expired);
+    final AtomicBoolean subscribed = new AtomicBoolean(true);
+    return () -> {
+      if(subscribed.compareAndSet(true, false)) {
+        this.unsubscribe(registrations);
+      }
+    };
+  }
+
+  @Override
+  public <T extends E, L> @NonNull EventSubscription subscribeWeakly(final @NonNull Class<T> event, final @NonNull L listener, final @NonNull WeakEventSubscriber<? super L, ? super T> subscriber) {
+    final WeakSubscriber<L, T> weak = new WeakSubscriber<>(requireNonNull(listener, "listener"), requireNonNull(subscriber, "subscriber"), this.expired);
+    final EventSubscription subscription = this.subscribe(event, weak);
+    weak.subscribed(subscription);
+    return subscription;
+  }
+
+  // only the slots that the group subscribed to are looked at
+  private void unsubscribe(final Map<Slot<E>, List<EventSubscriber<? super E>>> registrations) {
+    final Set<Slot<E>> dirty = new HashSet<>();
+    final List<EventSubscriber<? super E>> removed = new ArrayList<>();
+    for(final Map.Entry<Slot<E>, List<EventSubscriber<? super E>>> entry : registrations.entrySet()) {
+      // how many times each subscriber of the group was registered to the slot - the same subscriber may also have
+      // been registered outside of the group, so only as many as the group added are removed
+      final Map<EventSubscriber<? super E>, Integer> remaining = new IdentityHashMap<>();
+      for(final EventSubscriber<? super E> subscriber : entry.getValue()) {
+        remaining.merge(subscriber, 1, Integer::sum);
+      }
+      final Slot<E> slot = entry.getKey();
+      synchronized(slot) {
+        final List<EventSubscriber<? super E>> kept = new ArrayList<>(slot.subscribers.length);
+        for(final EventSubscriber<? super E> subscriber : slot.subscribers) {
+          final Integer count = remaining.get(subscriber);
+          if(count == null) {
+            kept.add(subscriber);
+          } else {
+            if(count == 1) {
+              remaining.remove(subscriber);
+            } else {
+              remaining.put(subscriber, count - 1);
+            }
+            removed.add(subscriber);
+          }
+        }
+        if(kept.size() != slot.subscribers.length) {
+          this.publish(slot, kept.toArray(newArray(kept.size())));
+          dirty.addAll(dependents(slot));
+        }
+      }
+    }
+    this.rebakeAll(dirty);
+    this.unsubscribed(removed);
+  }
+
+  @Override
+  public void unsubscribeIf(final @NonNull Predicate<EventSubscriber<? super E>> predicate) {
+    final Set<Slot<E>> dirty = new HashSet<>();
+    final List<EventSubscriber<? super E>> removed = new ArrayList<>();
+    for(final Slot<E> slot : this.registered) {
+      synchronized(slot) {
+        final List<EventSubscriber<? super E>> kept = new ArrayList<>(slot.subscribers.length);
+        for(final EventSubscriber<? super E> subscriber : slot.subscribers) {
+          if(predicate.test(unwrap(subscriber))) {
+            removed.add(subscriber);
+          } else {
+            kept.add(subscriber);
+          }
+        }
+        if(kept.size() != slot.subscribers.length) {
+          this.publish(slot, kept.toArray(newArray(kept.size())));
+          dirty.addAll(dependents(slot));
+        }
+      }
+    }
+    this.rebakeAll(dirty);
+    this.unsubscribed(removed);
+  }
+
+  // once subscribers have been removed from their slots
+  private void unsubscribed(final List<EventSubscriber<? super E>> removed) {
+    this.subscriptions.addAndGet(-removed.size());
+    for(final EventSubscriber<? super E> subscriber : removed) {
+      this.dispatcher.unsubscribed(subscriber);
+    }
+  }
+
+  // replaces the subscribers registered to a slot, holding its lock
+  private void publish(final Slot<E> slot, final EventSubscriber<? super E>[] subscribers) {
+    slot.subscribers = subscribers;
+    if(subscribers.length == 0) {
+      this.registered.remove(slot);
     } else {
-      return PostResult.failure(exceptions);
+      this.registered.add(slot);
     }
   }
 
-  private boolean accepts(final E event, final EventSubscriber<? super E> subscriber) {
-    return this.accepts.accepts(this.type, event, subscriber);
+  // the slots baked from a slot, holding its lock
+  private static <E> List<Slot<E>> dependents(final Slot<E> slot) {
+    return slot.dependents == null || slot.dependents.isEmpty() ? Collections.emptyList() : new ArrayList<>(slot.dependents);
   }
 
   @Override
-  public boolean subscribed(final @NonNull Class<? extends E> type) {
-    return !this.subscribers(type).isEmpty();
+  public @NonNull ChildEventBus<E> child() {
+    return new ChildEventBusImpl<>(this.builder, this);
   }
 
   @Override
-  public <T extends E> @NonNull EventSubscription subscribe(final @NonNull Class<T> event, final @NonNull EventSubscriber<? super T> subscriber) {
-    synchronized(this.lock) {
-      final List<EventSubscriber<? super T>> subscribers = yayGenerics(this.unbaked.computeIfAbsent(event, key -> new ArrayList<>()));
-      subscribers.add(subscriber);
-      this.baked.clear();
+  public void drop(final Predicate<EventSubscriber<? super E>> predicate) {
+    this.unsubscribeIf(predicate);
+  }
+
+  @Override
+  public void prebake(final @NonNull Collection<? extends Class<? extends E>> types) {
+    for(final Class<? extends E> type : types) {
+      if(!this.type.isAssignableFrom(requireNonNull(type, "type"))) {
+        throw new IllegalArgumentException(type + " is not a subtype of " + this.type);
+      }
+      this.dispatched(type);
     }
-    return () -> {
-      synchronized(this.lock) {
-        final List<EventSubscriber<? super T>> subscribers = yayGenerics(this.unbaked.get(event));
-        if(subscribers != null) {
-          subscribers.remove(subscriber);
-          this.baked.clear();
+  }
+
+  private void bakeLater(final Class<? extends E> event) {
+    if(this.bakeExecutor != null && this.slots.get(event).baked == null) {
+      this.bakeExecutor.execute(() -> this.dispatched(event));
+    }
+  }
+
+  @Override
+  public Baked<E> dispatched(final Class<? extends E> event) {
+    final Slot<E> slot = this.slots.get(event);
+    final Baked<E> baked = slot.baked;
+    return baked != null ? baked : this.bake(slot);
+  }
+
+  // The slot is registered as a dependent of its ancestry before the subscribers that were read are checked again, so
+  // that a change made after that is brought in by whoever made it. An ancestor that is purged meanwhile is no longer
+  // the slot of its class, so the ancestry is resolved again.
+  private Baked<E> bake(final Slot<E> slot) {
+    final long start = this.metrics != null ? System.nanoTime() : 0;
+    List<Slot<E>> ancestors = slot.ancestors;
+    if(ancestors == null) {
+      ancestors = this.ancestors(slot.type);
+    }
+    Baked<E> fresh;
+    while(true) {
+      final EventSubscriber<? super E>[][] sources = sources(ancestors);
+      fresh = this.bake(sources);
+      synchronized(slot) {
+        if(slot.baked != null) {
+          return slot.baked; // baked by someone else in the meantime
+        } else if(purged(ancestors)) {
+          ancestors = this.ancestors(slot.type);
+          continue;
+        }
+        for(final Slot<E> ancestor : ancestors) {
+          synchronized(ancestor) {
+            if(ancestor.dependents == null) {
+              ancestor.dependents = Collections.newSetFromMap(new WeakHashMap<>());
+            }
+            ancestor.dependents.add(slot);
+          }
+        }
+        if(current(ancestors, sources)) {
+          slot.baked = fresh;
+          slot.sources = sources;
+          slot.ancestors = ancestors;
+          break;
         }
       }
-    };
+    }
+    if(this.metrics != null) {
+      this.metrics.baked(slot.type, fresh.subscribers.length, false, System.nanoTime() - start);
+    }
+    this.track(slot);
+    return fresh;
+  }
+
+  // Brings a change to the subscribers registered to type into a slot baked from it: nothing to do if the slot was
+  // baked with the change, a patch if it was baked from just before it - the subscriber was added or removed at index -
+  // and otherwise a bake from scratch.
+  private void patch(final Slot<E> event, final Slot<E> type, final EventSubscriber<? super E>[] before, final EventSubscriber<? super E>[] after, final int index, final @Nullable EventSubscriber<? super E> added) {
+    synchronized(event) {
+      final Baked<E> baked = event.baked;
+      if(baked == null) {
+        return;
+      }
+      final int ancestor = event.ancestors.indexOf(type);
+      final EventSubscriber<? super E>[][] sources = event.sources;
+      if(sources[ancestor] == after) {
+        return;
+      } else if(sources[ancestor] != before) {
+        this.rebake(event);
+        return;
+      }
+      final long start = this.metrics != null ? System.nanoTime() : 0;
+      final EventSubscriber<? super E>[] subscribers = baked.subscribers;
+      final EventSubscriber<? super E> subscriber = added != null ? added : before[index];
+      final int position = position(sources, subscribers, ancestor, index, subscriber.postOrder());
+      final EventSubscriber<? super E>[] patched;
+      if(added != null) {
+        patched = newArray(subscribers.length + 1);
+        System.arraycopy(subscribers, 0, patched, 0, position);
+        patched[position] = added;
+        System.arraycopy(subscribers, position, patched, position + 1, subscribers.length - position);
+      } else {
+        patched = newArray(subscribers.length - 1);
+        System.arraycopy(subscribers, 0, patched, 0, position);
+        System.arraycopy(subscribers, position + 1, patched, position, subscribers.length - position - 1);
+      }
+      final EventSubscriber<? super E>[][] patchedSources = sources.clone();
+      patchedSources[ancestor] = after;
+      event.baked = this.bake(patched);
+      event.sources = patchedSources;
+      if(this.metrics != null) {
+        this.metrics.baked(event.type, patched.length, true, System.nanoTime() - start);
+      }
+    }
+  }
+
+  // bakes each of the slots again from scratch - used after a batch of changes, which would otherwise patch them once per change
+  private void rebakeAll(final Set<Slot<E>> slots) {
+    for(final Slot<E> slot : slots) {
+      synchronized(slot) {
+        if(slot.baked != null) {
+          this.rebake(slot);
+        }
+      }
+    }
+  }
+
+  // holding the lock of the slot, which is baked
+  private void rebake(final Slot<E> slot) {
+    final EventSubscriber<? super E>[][] sources = sources(slot.ancestors);
+    if(Arrays.equals(sources, slot.sources)) {
+      return; // already brought in
+    }
+    final long start = this.metrics != null ? System.nanoTime() : 0;
+    final Baked<E> baked = this.bake(sources);
+    slot.baked = baked;
+    slot.sources = sources;
+    if(this.metrics != null) {
+      this.metrics.baked(slot.type, baked.subscribers.length, true, System.nanoTime() - start);
+    }
+  }
+
+  // A baked list is the subscribers of each ancestor (in ancestry order, then registration order) stably sorted by
+  // post order - so the position of a single subscriber can be found without sorting again.
+  private static <E> int position(final EventSubscriber<? super E>[][] sources, final EventSubscriber<? super E>[] baked, final int ancestor, final int index, final int postOrder) {
+    // everything with a lower post order comes first...
+    int low = 0;
+    int high = baked.length;
+    while(low < high) {
+      final int middle = (low + high) >>> 1;
+      if(baked[middle].postOrder() < postOrder) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    // ...followed by subscribers with the same post order that were registered to an earlier ancestor, or earlier to the same one
+    int position = low;
+    for(int i = 0; i <= ancestor; i++) {
+      final EventSubscriber<? super E>[] subscribers = sources[i];
+      final int end = i == ancestor ? index : subscribers.length;
+      for(int j = 0; j < end; j++) {
+        if(subscribers[j].postOrder() == postOrder) {
+          position++;
+        }
+      }
+    }
+    return position;
+  }
+
+  private void track(final Slot<E> slot) {
+    final List<Slot<E>> evicted = new ArrayList<>();
+    synchronized(this.evictions) {
+      while(this.collected.poll() != null) {
+        this.bakedSlots--;
+      }
+      if(slot.reference != null) {
+        return; // still tracked from before it was last evicted
+      }
+      final WeakReference<Slot<E>> reference = new WeakReference<>(slot, this.collected);
+      slot.reference = reference;
+      this.bakeOrder.add(reference);
+      this.bakedSlots++;
+      while(this.bakedSlots > this.maximumBaked && !this.bakeOrder.isEmpty()) {
+        final Slot<E> oldest = this.bakeOrder.remove().get();
+        if(oldest != null) {
+          this.untrack(oldest);
+          evicted.add(oldest);
+        }
+      }
+      // references to evicted and collected slots are left behind, so sweep them up once they pile up
+      if(this.bakeOrder.size() > (this.bakedSlots << 1) + 64) {
+        this.bakeOrder.removeIf(candidate -> candidate.get() == null);
+      }
+    }
+    for(final Slot<E> oldest : evicted) {
+      this.unbake(oldest);
+    }
+  }
+
+  // holding the eviction lock
+  private void untrack(final Slot<E> slot) {
+    // cleared by hand, so that it is never enqueued and counted as collected
+    slot.reference.clear();
+    slot.reference = null;
+    this.bakedSlots--;
+  }
+
+  private void unbake(final Slot<E> slot) {
+    synchronized(slot) {
+      if(slot.baked == null) {
+        return;
+      }
+      slot.baked = null;
+      slot.sources = null;
+      for(final Slot<E> ancestor : slot.ancestors) {
+        synchronized(ancestor) {
+          ancestor.dependents.remove(slot);
+        }
+      }
+    }
   }
 
   @Override
-  public void unsubscribeIf(final @NonNull Predicate<EventSubscriber<? super E>> predicate) {
-    synchronized(this.lock) {
-      boolean dirty = false;
-      for(final List<EventSubscriber<? super E>> subscribers : this.unbaked.values()) {
-        dirty |= subscribers.removeIf(predicate);
+  public void purge(final @NonNull ClassLoader loader) {
+    requireNonNull(loader, "loader");
+    final List<Slot<E>> purged = new ArrayList<>();
+    synchronized(this.evictions) {
+      for(final WeakReference<Slot<E>> reference : this.bakeOrder) {
+        final Slot<E> slot = reference.get();
+        if(slot != null && slot.reference == reference && loadedBy(slot.ancestors, loader)) {
+          this.untrack(slot);
+          purged.add(slot);
+        }
+      }
+      this.bakeOrder.removeIf(candidate -> candidate.get() == null);
+    }
+    for(final Slot<E> slot : purged) {
+      this.unbake(slot);
+      synchronized(slot) {
+        if(slot.baked == null) {
+          slot.ancestors = null;
+        }
+      }
+      if(slot.type.getClassLoader() == loader) {
+        final List<Slot<E>> dependents;
+        synchronized(slot) {
+          // subscribing and baking look the slot up again once it is marked, so nothing can be subscribed to it after this
+          if(slot.subscribers.length != 0 || slot.purged) {
+            continue;
+          }
+          slot.purged = true;
+          this.slots.remove(slot.type);
+          dependents = dependents(slot);
+        }
+        // anything baked from it since it was picked out
+        for(final Slot<E> dependent : dependents) {
+          this.unbake(dependent);
+        }
       }
-      if(dirty) {
-        this.baked.clear();
+    }
+  }
+
+  private static <E> boolean loadedBy(final @Nullable List<Slot<E>> ancestors, final ClassLoader loader) {
+    if(ancestors != null) {
+      for(final Slot<E> ancestor : ancestors) {
+        if(ancestor.type.getClassLoader() == loader) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private List<Slot<E>> ancestors(final Class<?> type) {
+    final List<? extends Class<?>> ancestors = Internals.ancestors(type);
+    final List<Slot<E>> slots = new ArrayList<>(ancestors.size());
+    for(final Class<?> klass : ancestors) {
+      if(this.type.isAssignableFrom(klass)) {
+        slots.add(this.slots.get(klass));
       }
     }
+    return Collections.unmodifiableList(slots);
   }
 
-  private List<EventSubscriber<? super E>> subscribers(final @NonNull Class<? extends E> event) {
-    synchronized(this.lock) {
-      return this.baked.computeIfAbsent(event, this::subscribers0);
+  // the subscribers registered to each ancestor, right now
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static <E> EventSubscriber<? super E>[][] sources(final List<Slot<E>> ancestors) {
+    final EventSubscriber<? super E>[][] sources = new EventSubscriber[ancestors.size()][];
+    for(int i = 0; i < sources.length; i++) {
+      sources[i] = ancestors.get(i).subscribers;
     }
+    return sources;
   }
 
-  private List<EventSubscriber<? super E>> subscribers0(final @NonNull Class<? extends E> event) {
-    final List<EventSubscriber<? super E>> subscribers = new ArrayList<>();
-    final Collection<? extends Class<?>> types = this.classes.computeIfAbsent(event, this::findClasses);
-    for(final Class<?> type : types) {
-      subscribers.addAll(this.unbaked.getOrDefault(type, Collections.emptyList()));
+  private static <E> boolean purged(final List<Slot<E>> ancestors) {
+    for(final Slot<E> ancestor : ancestors) {
+      if(ancestor.purged) {
+        return true;
+      }
     }
-    subscribers.sort(COMPARATOR);
-    return subscribers;
+    return false;
   }
 
-  private Collection<? extends Class<?>> findClasses(final Class<?> type) {
-    final Collection<? extends Class<?>> classes = Internals.ancestors(type);
-    classes.removeIf(klass -> !this.type.isAssignableFrom(klass));
-    return classes;
+  private static <E> boolean current(final List<Slot<E>> ancestors, final EventSubscriber<? super E>[][] sources) {
+    for(int i = 0; i < sources.length; i++) {
+      if(ancestors.get(i).subscribers != sources[i]) {
+        return false;
+      }
+    }
+    return true;
   }
 
+  private Baked<E> bake(final EventSubscriber<? super E>[][] sources) {
+    int length = 0;
+    for(final EventSubscriber<? super E>[] subscribers : sources) {
+      length += subscribers.length;
+    }
+    final EventSubscriber<? super E>[] baked = newArray(length);
+    int offset = 0;
+    for(final EventSubscriber<? super E>[] subscribers : sources) {
+      System.arraycopy(subscribers, 0, baked, offset, subscribers.length);
+      offset += subscribers.length;
+    }
+    Arrays.sort(baked, COMPARATOR); // stable
+    return this.bake(baked);
+  }
+
+  private Baked<E> bake(final EventSubscriber<? super E>[] subscribers) {
+    return new Baked<>(subscribers, this.parallelExecutor != null);
+  }
+
+  // keyed subscribers are tested as the subscriber they wrap
   @SuppressWarnings("unchecked")
-  private static <T extends U, U> List<U> yayGenerics(final List<T> list) {
-    return (List<U>) list;
+  private static <E> EventSubscriber<? super E> unwrap(final EventSubscriber<? super E> subscriber) {
+    return (EventSubscriber<? super E>) KeyedEventSubscriber.unwrap(subscriber);
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static <E> EventSubscriber<? super E>[] newArray(final int length) {
+    return new EventSubscriber[length];
+  }
+
+  // Everything the bus knows about a single class. Found through a ClassValue, so that posting never has to hash a class.
+  private static final class Slot<E> {
+    final Class<? extends E> type;
+    // read without holding the lock; null until this class is first posted
+    volatile @Nullable Baked<E> baked;
+    // the subscribers of each ancestor that the baked subscribers were made from - guarded by the lock, like the rest
+    EventSubscriber<? super E> @Nullable [][] sources;
+    // the ancestry of this class, once baked
+    volatile @Nullable List<Slot<E>> ancestors;
+    // subscribers registered to exactly this class, replaced on every change - read without holding the lock
+    @SuppressWarnings("unchecked")
+    volatile EventSubscriber<? super E>[] subscribers = (EventSubscriber<? super E>[]) EMPTY;
+    // baked slots whose ancestry contains this class - held weakly, as they may belong to a class loader that
+    // is unloaded before the one of this class
+    @Nullable Set<Slot<E>> dependents;
+    // once the slot has been removed by purging its class loader - read without holding the lock
+    volatile boolean purged;
+    // tracks this slot while it is baked, guarded by the eviction lock
+    @Nullable WeakReference<Slot<E>> reference;
+
+    Slot(final Class<? extends E> type) {
+      this.type = type;
+    }
+  }
+
+  static final class BuilderImpl<E> implements Builder<E> {
+    final Class<E> type;
+    Accepts<E> accepts = Accepts.nonCancelledWhenNotAcceptingCancelled();
+    boolean compiledDispatch;
+    Executor asyncExecutor = ForkJoinPool.commonPool();
+    @Nullable Executor parallelExecutor;
+    @Nullable EventMetrics metrics;
+    @Nullable SubscriberWatchdog watchdog;
+    @Nullable Executor bakeExecutor;
+    int maximumBaked = Integer.MAX_VALUE;
+
+    BuilderImpl(final Class<E> type) {
+      this.type = requireNonNull(type, "type");
+    }
+
+    @Override
+    public @NonNull Builder<E> accepts(final @NonNull Accepts<E> accepts) {
+      this.accepts = requireNonNull(accepts, "accepts");
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> compiledDispatch(final boolean compiledDispatch) {
+      this.compiledDispatch = compiledDispatch;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> asyncExecutor(final @NonNull Executor executor) {
+      this.asyncExecutor = requireNonNull(executor, "executor");
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> parallelDispatch(final @Nullable Executor executor) {
+      this.parallelExecutor = executor;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> metrics(final @Nullable EventMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> watchdog(final @Nullable SubscriberWatchdog watchdog) {
+      this.watchdog = watchdog;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> maximumBakedTypes(final int maximum) {
+      if(maximum < 1) {
+        throw new IllegalArgumentException("maximum must be positive, got " + maximum);
+      }
+      this.maximumBaked = maximum;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> backgroundBaking(final @Nullable Executor executor) {
+      this.bakeExecutor = executor;
+      return this;
+    }
+
+    @Override
+    public @NonNull EventBus<E> build() {
+      return new EventBusImpl<>(this);
+    }
   }
 }
@@ -0,0 +1,236 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Receives measurements from an {@link EventBus}.
+ *
+ * <p>Metrics are disabled unless {@link EventBus.Builder#metrics(EventMetrics) set} when creating a bus.
+ * Methods are called on the posting thread, from inside the dispatch loop, so implementations
+ * must be thread safe and should return quickly.</p>
+ *
+ * @since 5.0.0
+ */
+public interface EventMetrics {
+  /**
+   * Creates a recorder, which keeps counters and latency histograms in memory.
+   *
+   * @return a new recorder
+   * @since 5.0.0
+   */
+  static @NonNull Recorder recorder() {
+    return new EventMetricsRecorder();
+  }
+
+  /**
+   * Called when an event is posted.
+   *
+   * @param event the event type
+   * @since 5.0.0
+   */
+  default void posted(final @NonNull Class<?> event) {
+  }
+
+  /**
+   * Called after a subscriber has been invoked, whether or not it threw an exception.
+   *
+   * @param event the event type
+   * @param subscriber the subscriber
+   * @param nanos the time spent in the subscriber, in nanoseconds
+   * @since 5.0.0
+   */
+  default void invoked(final @NonNull Class<?> event, final @NonNull EventSubscriber<?> subscriber, final long nanos) {
+  }
+
+  /**
+   * Called when a subscriber is skipped because it does not {@link EventBus.Accepts accept} an event.
+   *
+   * @param event the event type
+   * @param subscriber the subscriber
+   * @since 5.0.0
+   */
+  default void rejected(final @NonNull Class<?> event, final @NonNull EventSubscriber<?> subscriber) {
+  }
+
+  /**
+   * Called when a subscriber throws an exception.
+   *
+   * @param event the event type
+   * @param subscriber the subscriber
+   * @param exception the exception
+   * @since 5.0.0
+   */
+  default void failed(final @NonNull Class<?> event, final @NonNull EventSubscriber<?> subscriber, final @NonNull Throwable exception) {
+  }
+
+  /**
+   * Called when the subscribers of an event type have been baked.
+   *
+   * @param event the event type
+   * @param subscribers the number of subscribers
+   * @param rebake {@code true} if existing baked subscribers were patched after a subscription change,
+   *     {@code false} if they were baked from scratch
+   * @param nanos the time spent baking, in nanoseconds
+   * @since 5.0.0
+   */
+  default void baked(final @NonNull Class<?> event, final int subscribers, final boolean rebake, final long nanos) {
+  }
+
+  /**
+   * Called when a subscriber is subscribed, before it can be invoked.
+   *
+   * <p>A subscriber that is subscribed more than once is reported once for each subscription.</p>
+   *
+   * @param subscriber the subscriber
+   * @since 5.0.0
+   */
+  default void subscribed(final @NonNull EventSubscriber<?> subscriber) {
+  }
+
+  /**
+   * Called when a subscriber is unsubscribed.
+   *
+   * <p>A subscriber that was subscribed more than once is reported once for each subscription.</p>
+   *
+   * @param subscriber the subscriber
+   * @since 5.0.0
+   */
+  default void unsubscribed(final @NonNull EventSubscriber<?> subscriber) {
+  }
+
+  /**
+   * Metrics kept in memory.
+   *
+   * <p>Counters are striped, so recording does not contend between posting threads. Nothing is kept
+   * for an event type once its class is unloaded. Subscribers are told apart by identity, as the bus
+   * does, and the latencies of a subscriber are kept until its last subscription is unsubscribed.</p>
+   *
+   * @since 5.0.0
+   */
+  interface Recorder extends EventMetrics {
+    /**
+     * Gets the number of times an event type has been posted.
+     *
+     * @param event the event type
+     * @return the number of posts
+     * @since 5.0.0
+     */
+    long posts(final @NonNull Class<?> event);
+
+    /**
+     * Gets the number of times subscribers were skipped for an event type.
+     *
+     * @param event the event type
+     * @return the number of rejections
+     * @since 5.0.0
+     */
+    long rejections(final @NonNull Class<?> event);
+
+    /**
+     * Gets the number of exceptions thrown by subscribers for an event type.
+     *
+     * @param event the event type
+     * @return the number of failures
+     * @since 5.0.0
+     */
+    long failures(final @NonNull Class<?> event);
+
+    /**
+     * Gets the latencies of a subscriber.
+     *
+     * @param subscriber the subscriber
+     * @return the latency histogram, or {@code null} if the subscriber is not subscribed
+     * @since 5.0.0
+     */
+    @Nullable Histogram latency(final @NonNull EventSubscriber<?> subscriber);
+
+    /**
+     * Gets the number of times subscribers were baked from scratch.
+     *
+     * @return the number of bakes
+     * @since 5.0.0
+     */
+    long bakes();
+
+    /**
+     * Gets the number of times baked subscribers were patched.
+     *
+     * @return the number of rebakes
+     * @since 5.0.0
+     */
+    long rebakes();
+
+    /**
+     * Gets the total time spent baking and rebaking, in nanoseconds.
+     *
+     * @return the time spent baking
+     * @since 5.0.0
+     */
+    long bakeNanos();
+
+    /**
+     * Discards everything recorded so far.
+     *
+     * @since 5.0.0
+     */
+    void reset();
+  }
+
+  /**
+   * A latency histogram, with power-of-two buckets.
+   *
+   * @since 5.0.0
+   */
+  interface Histogram {
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     * @since 5.0.0
+     */
+    long count();
+
+    /**
+     * Gets the sum of all recorded values, in nanoseconds.
+     *
+     * @return the total
+     * @since 5.0.0
+     */
+    long totalNanos();
+
+    /**
+     * Gets an upper bound for a percentile of the recorded values, in nanoseconds.
+     *
+     * <p>The bound is at most twice the real value.</p>
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the upper bound
+     * @since 5.0.0
+     */
+    long percentile(final double percentile);
+  }
+}
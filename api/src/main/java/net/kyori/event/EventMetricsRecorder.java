@@ -0,0 +1,228 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Counters hang off the event class itself, so that they go away with it, rather than keeping it from being unloaded.
+final class EventMetricsRecorder implements EventMetrics.Recorder {
+  private volatile ClassValue<Counters> counters = counters();
+  // by identity, as the bus tells subscribers apart - kept while a subscriber has any subscription left
+  private final ConcurrentMap<Identity, Latency> latencies = new ConcurrentHashMap<>();
+  private final LongAdder bakes = new LongAdder();
+  private final LongAdder rebakes = new LongAdder();
+  private final LongAdder bakeNanos = new LongAdder();
+
+  @Override
+  public void posted(final @NonNull Class<?> event) {
+    this.counters.get(event).posts.increment();
+  }
+
+  @Override
+  public void invoked(final @NonNull Class<?> event, final @NonNull EventSubscriber<?> subscriber, final long nanos) {
+    final Latency latency = this.latencies.get(new Identity(subscriber));
+    if(latency != null) { // a quarantined subscriber may still be running after it has been unsubscribed
+      latency.histogram.record(nanos);
+    }
+  }
+
+  @Override
+  public void rejected(final @NonNull Class<?> event, final @NonNull EventSubscriber<?> subscriber) {
+    this.counters.get(event).rejections.increment();
+  }
+
+  @Override
+  public void failed(final @NonNull Class<?> event, final @NonNull EventSubscriber<?> subscriber, final @NonNull Throwable exception) {
+    this.counters.get(event).failures.increment();
+  }
+
+  @Override
+  public void baked(final @NonNull Class<?> event, final int subscribers, final boolean rebake, final long nanos) {
+    (rebake ? this.rebakes : this.bakes).increment();
+    this.bakeNanos.add(nanos);
+  }
+
+  @Override
+  public void subscribed(final @NonNull EventSubscriber<?> subscriber) {
+    this.latencies.compute(new Identity(subscriber), (key, latency) -> {
+      if(latency == null) {
+        return new Latency();
+      }
+      latency.subscriptions++;
+      return latency;
+    });
+  }
+
+  @Override
+  public void unsubscribed(final @NonNull EventSubscriber<?> subscriber) {
+    this.latencies.computeIfPresent(new Identity(subscriber), (key, latency) -> --latency.subscriptions == 0 ? null : latency);
+  }
+
+  @Override
+  public long posts(final @NonNull Class<?> event) {
+    return this.counters.get(event).posts.sum();
+  }
+
+  @Override
+  public long rejections(final @NonNull Class<?> event) {
+    return this.counters.get(event).rejections.sum();
+  }
+
+  @Override
+  public long failures(final @NonNull Class<?> event) {
+    return this.counters.get(event).failures.sum();
+  }
+
+  @Override
+  public EventMetrics.@Nullable Histogram latency(final @NonNull EventSubscriber<?> subscriber) {
+    final Latency latency = this.latencies.get(new Identity(subscriber));
+    return latency != null ? latency.histogram : null;
+  }
+
+  @Override
+  public long bakes() {
+    return this.bakes.sum();
+  }
+
+  @Override
+  public long rebakes() {
+    return this.rebakes.sum();
+  }
+
+  @Override
+  public long bakeNanos() {
+    return this.bakeNanos.sum();
+  }
+
+  @Override
+  public void reset() {
+    this.counters = counters();
+    for(final Latency latency : this.latencies.values()) {
+      latency.histogram = new HistogramImpl();
+    }
+    this.bakes.reset();
+    this.rebakes.reset();
+    this.bakeNanos.reset();
+  }
+
+  private static ClassValue<Counters> counters() {
+    return new ClassValue<Counters>() {
+      @Override
+      protected Counters computeValue(final Class<?> type) {
+        return new Counters();
+      }
+    };
+  }
+
+  private static final class Counters {
+    final LongAdder posts = new LongAdder();
+    final LongAdder rejections = new LongAdder();
+    final LongAdder failures = new LongAdder();
+  }
+
+  // a key that is only equal to itself
+  private static final class Identity {
+    private final Object value;
+
+    Identity(final Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof Identity && ((Identity) other).value == this.value;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.value);
+    }
+  }
+
+  private static final class Latency {
+    // only changed by the map, holding the entry
+    int subscriptions = 1;
+    volatile HistogramImpl histogram = new HistogramImpl();
+  }
+
+  static final class HistogramImpl implements EventMetrics.Histogram {
+    // bucket i holds values in [2^i, 2^(i + 1)), with 0 in the first bucket
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+    private final LongAdder total = new LongAdder();
+
+    HistogramImpl() {
+      for(int i = 0; i < this.buckets.length; i++) {
+        this.buckets[i] = new LongAdder();
+      }
+    }
+
+    void record(final long nanos) {
+      final long value = Math.max(nanos, 0);
+      this.buckets[value == 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(value)].increment();
+      this.total.add(value);
+    }
+
+    @Override
+    public long count() {
+      long count = 0;
+      for(final LongAdder bucket : this.buckets) {
+        count += bucket.sum();
+      }
+      return count;
+    }
+
+    @Override
+    public long totalNanos() {
+      return this.total.sum();
+    }
+
+    @Override
+    public long percentile(final double percentile) {
+      final long[] counts = new long[this.buckets.length];
+      long count = 0;
+      for(int i = 0; i < counts.length; i++) {
+        counts[i] = this.buckets[i].sum();
+        count += counts[i];
+      }
+      final long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+      long seen = 0;
+      for(int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if(seen >= rank && counts[i] != 0) {
+          return i == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public String toString() {
+      return "Histogram(count=" + this.count() + ", totalNanos=" + this.totalNanos() + ")";
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Posts events to an {@link EventBus} from a dedicated dispatcher thread.
+ *
+ * <p>Events are {@link #post(Object) posted} into a bounded queue and return straight away, so that
+ * producers never run subscriber code themselves. A single dispatcher thread takes events off the queue
+ * and posts them to the bus in the order they were queued, with the usual subscriber ordering and
+ * {@link EventBus.Accepts acceptance} rules of the bus.</p>
+ *
+ * <p>When the queue is full, what happens depends on the {@link Backpressure backpressure} policy.
+ * {@link Coalescable} events replace a queued event of the same class with the same key instead of taking up more room.</p>
+ *
+ * @param <E> the event type
+ * @since 5.0.0
+ */
+public interface EventPipeline<E> extends AutoCloseable {
+  /**
+   * Creates a builder for a pipeline that posts to {@code bus}.
+   *
+   * @param bus the bus to post to
+   * @param <E> the event type
+   * @return a new builder
+   * @since 5.0.0
+   */
+  static <E> @NonNull Builder<E> builder(final @NonNull EventBus<E> bus) {
+    return new EventPipelineImpl.BuilderImpl<>(bus);
+  }
+
+  /**
+   * Gets the bus that events are posted to.
+   *
+   * @return the bus
+   * @since 5.0.0
+   */
+  @NonNull EventBus<E> bus();
+
+  /**
+   * Queues an event to be posted.
+   *
+   * @param event the event
+   * @return {@code true} if the event was queued or replaced a queued event, {@code false} if it was dropped
+   * @throws RejectedExecutionException if the queue is full and the policy is {@link Backpressure#FAIL}
+   * @throws IllegalStateException if the pipeline has been closed
+   * @since 5.0.0
+   */
+  boolean post(final @NonNull E event);
+
+  /**
+   * Gets the number of events waiting to be posted.
+   *
+   * @return the queue depth
+   * @since 5.0.0
+   */
+  int depth();
+
+  /**
+   * Gets the number of events the queue can hold.
+   *
+   * @return the queue capacity
+   * @since 5.0.0
+   */
+  int capacity();
+
+  /**
+   * Gets the number of events that were dropped or rejected because the queue was full.
+   *
+   * @return the number of dropped events
+   * @since 5.0.0
+   */
+  long dropped();
+
+  /**
+   * Gets the number of queued {@link Coalescable} events that were replaced by newer ones.
+   *
+   * @return the number of replaced events
+   * @since 5.0.0
+   */
+  long coalesced();
+
+  /**
+   * Stops accepting events, and waits for the queued events to be posted.
+   *
+   * <p>Producers that are waiting for room are woken up and fail. An event accepted whilst the pipeline
+   * is being closed is still posted, by the producer itself if the dispatcher has already finished.</p>
+   *
+   * @since 5.0.0
+   */
+  @Override
+  void close();
+
+  /**
+   * What happens when an event is posted while the queue is full.
+   *
+   * @since 5.0.0
+   */
+  enum Backpressure {
+    /**
+     * The posting thread waits until there is room.
+     *
+     * @since 5.0.0
+     */
+    BLOCK,
+    /**
+     * The oldest queued event is dropped to make room.
+     *
+     * @since 5.0.0
+     */
+    DROP_OLDEST,
+    /**
+     * The posted event is dropped.
+     *
+     * @since 5.0.0
+     */
+    DROP_NEWEST,
+    /**
+     * The posted event is rejected with a {@link RejectedExecutionException}.
+     *
+     * @since 5.0.0
+     */
+    FAIL
+  }
+
+  /**
+   * A builder for an {@link EventPipeline}.
+   *
+   * @param <E> the event type
+   * @since 5.0.0
+   */
+  interface Builder<E> {
+    /**
+     * Sets the number of events the queue can hold, which is rounded up to a power of two of at least {@code 2}.
+     *
+     * <p>Defaults to {@code 1024}.</p>
+     *
+     * @param capacity the capacity
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> capacity(final int capacity);
+
+    /**
+     * Sets what happens when an event is posted while the queue is full.
+     *
+     * <p>Defaults to {@link Backpressure#BLOCK}.</p>
+     *
+     * @param backpressure the backpressure policy
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> backpressure(final @NonNull Backpressure backpressure);
+
+    /**
+     * Sets the factory that creates the dispatcher thread.
+     *
+     * <p>Defaults to a daemon thread named {@code event-dispatcher}. A virtual thread factory may be
+     * used on Java 21 and above.</p>
+     *
+     * @param threadFactory the thread factory
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> threadFactory(final @NonNull ThreadFactory threadFactory);
+
+    /**
+     * Sets the handler for exceptions thrown by subscribers.
+     *
+     * <p>Defaults to the {@link Thread#getUncaughtExceptionHandler() uncaught exception handler} of the
+     * dispatcher thread.</p>
+     *
+     * @param exceptionHandler the exception handler
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> exceptionHandler(final @NonNull BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler);
+
+    /**
+     * Builds the pipeline, and starts its dispatcher thread.
+     *
+     * @return a pipeline
+     * @since 5.0.0
+     */
+    @NonNull EventPipeline<E> build();
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class EventPipelineImpl<E> implements EventPipeline<E> {
+  private static final ThreadFactory DEFAULT_THREAD_FACTORY = runnable -> {
+    final Thread thread = new Thread(runnable, "event-dispatcher");
+    thread.setDaemon(true);
+    return thread;
+  };
+  private final EventBus<E> bus;
+  // holds events, and a Pending for each coalescing key
+  private final RingBuffer<Object> queue;
+  private final Backpressure backpressure;
+  private final BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler;
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  // the pending events of each class by coalescing key - events of different classes never replace each other
+  private final ClassValue<ConcurrentMap<Object, Pending>> pending = new ClassValue<ConcurrentMap<Object, Pending>>() {
+    @Override
+    protected ConcurrentMap<Object, Pending> computeValue(final Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+  // producers waiting for room, when blocking
+  private final Queue<Thread> blocked = new ConcurrentLinkedQueue<>();
+  private final Thread dispatcher;
+  private volatile boolean sleeping;
+  private volatile boolean closed;
+
+  EventPipelineImpl(final BuilderImpl<E> builder) {
+    this.bus = builder.bus;
+    this.queue = new RingBuffer<>(builder.capacity);
+    this.backpressure = builder.backpressure;
+    this.exceptionHandler = builder.exceptionHandler != null ? builder.exceptionHandler : (subscriber, t) -> uncaught(t);
+    this.dispatcher = requireNonNull(builder.threadFactory.newThread(this::dispatch), "thread");
+    this.dispatcher.start();
+  }
+
+  @Override
+  public @NonNull EventBus<E> bus() {
+    return this.bus;
+  }
+
+  @Override
+  public boolean post(final @NonNull E event) {
+    requireNonNull(event, "event");
+    if(this.closed) {
+      throw new IllegalStateException("pipeline has been closed");
+    }
+    final Object element;
+    final @Nullable Pending created;
+    if(event instanceof Coalescable) {
+      final Object key = ((Coalescable) event).coalescingKey();
+      final ConcurrentMap<Object, Pending> pending = this.pending.get(event.getClass());
+      while(true) {
+        final Pending existing = pending.get(key);
+        if(existing == null) {
+          break;
+        }
+        if(existing.replace(event)) {
+          this.coalesced.increment();
+          return true;
+        }
+        pending.remove(key, existing); // taken by the dispatcher, which removes it from the map once it has
+      }
+      // only published once queued, so nothing else can coalesce into an event that is then dropped
+      created = new Pending(pending, key, event);
+      element = created;
+    } else {
+      created = null;
+      element = event;
+    }
+    if(!this.queue.offer(element)) {
+      switch(this.backpressure) {
+        case BLOCK:
+          this.await(element);
+          break;
+        case DROP_OLDEST:
+          while(!this.queue.offer(element)) {
+            final Object oldest = this.queue.poll();
+            if(oldest != null) {
+              this.take(oldest);
+              this.dropped.increment();
+            }
+          }
+          break;
+        case DROP_NEWEST:
+          this.dropped.increment();
+          return false;
+        default:
+          this.dropped.increment();
+          throw new RejectedExecutionException("queue is full");
+      }
+    }
+    if(created != null && created.keys.putIfAbsent(created.key, created) == null && created.get() == Pending.TAKEN) {
+      created.keys.remove(created.key, created); // already taken by the dispatcher
+    }
+    if(this.closed && Thread.currentThread() != this.dispatcher) {
+      // closed whilst this was being queued - the dispatcher may have already found the queue empty and returned
+      this.drain();
+    } else if(this.sleeping) {
+      LockSupport.unpark(this.dispatcher);
+    }
+    return true;
+  }
+
+  private void await(final Object element) {
+    final Thread thread = Thread.currentThread();
+    this.blocked.add(thread);
+    try {
+      // the dispatcher wakes the first blocked producer whenever it takes an event, so keep trying until one gets in
+      while(!this.queue.offer(element)) {
+        if(this.closed) {
+          throw new IllegalStateException("pipeline has been closed");
+        }
+        LockSupport.park(this);
+        if(Thread.interrupted()) {
+          thread.interrupt();
+          throw new RejectedExecutionException("interrupted whilst waiting for room in the queue");
+        }
+      }
+    } finally {
+      this.blocked.remove(thread);
+      // the dispatcher may have woken this producer again before it left, rather than the next one
+      final Thread next = this.blocked.peek();
+      if(next != null) {
+        LockSupport.unpark(next);
+      }
+    }
+  }
+
+  private void dispatch() {
+    while(true) {
+      final Object element = this.queue.poll();
+      if(element != null) {
+        final Thread producer = this.blocked.peek();
+        if(producer != null) {
+          LockSupport.unpark(producer);
+        }
+        final E event = this.take(element);
+        try {
+          this.bus.post(event, this.exceptionHandler);
+        } catch(final Throwable t) {
+          uncaught(t);
+        }
+        continue;
+      }
+      // an event that is still being written counts towards the size, so nothing is left behind when closing
+      if(this.closed && this.queue.size() == 0) {
+        return;
+      }
+      this.sleeping = true;
+      if(this.queue.size() == 0 && !this.closed) {
+        LockSupport.park(this);
+      }
+      this.sleeping = false;
+    }
+  }
+
+  // posts whatever is left in the queue once the dispatcher has returned
+  private void drain() {
+    this.join();
+    synchronized(this.queue) {
+      Object element;
+      while((element = this.queue.poll()) != null) {
+        try {
+          this.bus.post(this.take(element), this.exceptionHandler);
+        } catch(final Throwable t) {
+          uncaught(t);
+        }
+      }
+    }
+  }
+
+  // takes an event out of an element of the queue, which can no longer be replaced once this returns
+  @SuppressWarnings("unchecked")
+  private E take(final Object element) {
+    if(element instanceof Pending) {
+      final Pending pending = (Pending) element;
+      // taken before it is removed, so that a producer publishing it late sees that it has been
+      final E event = (E) pending.getAndSet(Pending.TAKEN);
+      pending.keys.remove(pending.key, pending);
+      return event;
+    }
+    return (E) element;
+  }
+
+  private static void uncaught(final Throwable t) {
+    final Thread thread = Thread.currentThread();
+    thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+  }
+
+  @Override
+  public int depth() {
+    return this.queue.size();
+  }
+
+  @Override
+  public int capacity() {
+    return this.queue.capacity();
+  }
+
+  @Override
+  public long dropped() {
+    return this.dropped.sum();
+  }
+
+  @Override
+  public long coalesced() {
+    return this.coalesced.sum();
+  }
+
+  @Override
+  public void close() {
+    this.closed = true;
+    LockSupport.unpark(this.dispatcher);
+    for(final Thread producer : this.blocked) {
+      LockSupport.unpark(producer);
+    }
+    if(Thread.currentThread() == this.dispatcher) {
+      return; // closed by a subscriber - the queue is drained once it returns
+    }
+    this.join();
+  }
+
+  private void join() {
+    boolean interrupted = false;
+    while(true) {
+      try {
+        this.dispatcher.join();
+        break;
+      } catch(final InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if(interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // the latest event for a coalescing key, whilst it is queued
+  private static final class Pending extends AtomicReference<Object> {
+    private static final long serialVersionUID = 1L;
+    static final Object TAKEN = new Object();
+    // the pending events of the same class
+    final ConcurrentMap<Object, Pending> keys;
+    final Object key;
+
+    Pending(final ConcurrentMap<Object, Pending> keys, final Object key, final Object event) {
+      super(event);
+      this.keys = keys;
+      this.key = key;
+    }
+
+    boolean replace(final Object event) {
+      while(true) {
+        final Object current = this.get();
+        if(current == TAKEN) {
+          return false;
+        }
+        if(this.compareAndSet(current, event)) {
+          return true;
+        }
+      }
+    }
+  }
+
+  static final class BuilderImpl<E> implements Builder<E> {
+    private final EventBus<E> bus;
+    private int capacity = 1024;
+    private Backpressure backpressure = Backpressure.BLOCK;
+    private ThreadFactory threadFactory = DEFAULT_THREAD_FACTORY;
+    private @Nullable BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler;
+
+    BuilderImpl(final EventBus<E> bus) {
+      this.bus = requireNonNull(bus, "bus");
+    }
+
+    @Override
+    public @NonNull Builder<E> capacity(final int capacity) {
+      if(capacity < 1 || capacity > 1 << 30) {
+        throw new IllegalArgumentException("capacity must be between 1 and 2^30, got " + capacity);
+      }
+      this.capacity = capacity;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> backpressure(final @NonNull Backpressure backpressure) {
+      this.backpressure = requireNonNull(backpressure, "backpressure");
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> threadFactory(final @NonNull ThreadFactory threadFactory) {
+      this.threadFactory = requireNonNull(threadFactory, "threadFactory");
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> exceptionHandler(final @NonNull BiConsumer<? super EventSubscriber<?>, ? super Throwable> exceptionHandler) {
+      this.exceptionHandler = requireNonNull(exceptionHandler, "exceptionHandler");
+      return this;
+    }
+
+    @Override
+    public @NonNull EventPipeline<E> build() {
+      return new EventPipelineImpl<>(this);
+    }
+  }
+}
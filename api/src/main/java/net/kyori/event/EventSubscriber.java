@@ -60,4 +60,18 @@ public interface EventSubscriber<E> {
   default boolean acceptsCancelled() {
     return true;
   }
+
+  /**
+   * Gets if this subscriber may be called at the same time as other subscribers with the same {@link #postOrder() post order}.
+   *
+   * <p>This is only used by buses with {@link EventBus.Builder#parallelDispatch(java.util.concurrent.Executor) parallel dispatch} enabled.
+   * A parallel safe subscriber must not depend on the effects of other subscribers sharing its post order,
+   * such as cancellation, and must be safe to call from any thread.</p>
+   *
+   * @return {@code true} if this subscriber is parallel safe, {@code false} otherwise
+   * @since 5.0.0
+   */
+  default boolean parallelSafe() {
+    return false;
+  }
 }
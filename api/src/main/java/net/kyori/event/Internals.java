@@ -24,13 +24,52 @@
 package net.kyori.event;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 final class Internals {
+  static final EventBus.Accepts<Object> NON_CANCELLED_WHEN_NOT_ACCEPTING_CANCELLED = (type, event, subscriber) -> {
+    if(!subscriber.acceptsCancelled()) {
+      if(event instanceof Cancellable && ((Cancellable) event).cancelled()) {
+        return false;
+      }
+    }
+    return true;
+  };
+
+  // shared by every bus - the ancestry of a class never changes
+  private static final ClassValue<List<Class<?>>> ANCESTORS = new ClassValue<List<Class<?>>>() {
+    @Override
+    protected List<Class<?>> computeValue(final Class<?> type) {
+      return resolveAncestors(type);
+    }
+  };
+
   private Internals() {
   }
 
+  // when a subscriber fails more than once (posting in bulk), keep the first exception and suppress the rest
+  static @NonNull Map<EventSubscriber<?>, Throwable> collect(final @Nullable Map<EventSubscriber<?>, Throwable> exceptions, final @NonNull EventSubscriber<?> subscriber, final @NonNull Throwable exception) {
+    final Map<EventSubscriber<?>, Throwable> map = exceptions == null ? new HashMap<>() : exceptions;
+    final Throwable first = map.putIfAbsent(subscriber, exception);
+    if(first != null && first != exception) {
+      first.addSuppressed(exception);
+    }
+    return map;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> @NonNull List<Class<? super T>> ancestors(final @NonNull Class<T> type) {
+    return (List<Class<? super T>>) (List<?>) ANCESTORS.get(type);
+  }
+
   // https://github.com/Kaoaki/ksl/blob/master/src/main/java/net/kaoaki/ksl/reflection/Types.java
   /*
    * This file is part of ksl, licensed under the MIT License.
@@ -55,24 +94,24 @@ final class Internals {
    * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
    * SOFTWARE.
    */
-  @SuppressWarnings("unchecked")
-  static <T> @NonNull List<Class<? super T>> ancestors(final @NonNull Class<T> type) {
-    final List<Class<? super T>> types = new ArrayList<>();
+  static @NonNull List<Class<?>> resolveAncestors(final @NonNull Class<?> type) {
+    final List<Class<?>> types = new ArrayList<>();
+    // we have a list because we want to preserve order, but we don't want duplicates - the set saves scanning it
+    final Set<Class<?>> seen = new HashSet<>();
     types.add(type);
+    seen.add(type);
     for(int i = 0; i < types.size(); i++) {
       final Class<?> next = types.get(i);
       final Class<?> superclass = next.getSuperclass();
-      if(superclass != null) {
-        types.add((Class<? super T>) superclass);
+      if(superclass != null && seen.add(superclass)) {
+        types.add(superclass);
       }
-      final Class<?>[] interfaces = next.getInterfaces();
-      for(final Class<?> iface : interfaces) {
-        // we have a list because we want to preserve order, but we don't want duplicates
-        if(!types.contains(iface)) {
-          types.add((Class<? super T>) iface);
+      for(final Class<?> iface : next.getInterfaces()) {
+        if(seen.add(iface)) {
+          types.add(iface);
         }
       }
     }
-    return types;
+    return Collections.unmodifiableList(Arrays.asList(types.toArray(new Class<?>[0])));
   }
 }
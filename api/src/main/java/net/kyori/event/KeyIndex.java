@@ -0,0 +1,140 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Finds the positions in a baked list that an event should be posted to, when some of the subscribers are keyed:
+// the unkeyed subscribers, plus the keyed subscribers whose key matches. Keyed subscribers sharing a key extractor
+// share a hash index, so the key is only extracted once per extractor. A matched subscriber can then be invoked without
+// its key being checked again - except when the extractor fails, where the positions come back as -1 - position, so
+// that the keyed subscribers are invoked to decide for themselves (and report the failure).
+final class KeyIndex {
+  private final int[] unkeyed;
+  private final Function<Object, ?>[] extractors;
+  private final Map<Object, int[]>[] positions;
+  // every position of each extractor as -1 - position, for when it fails
+  private final int[][] all;
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private KeyIndex(final int[] unkeyed, final Map<Function<?, ?>, Map<Object, List<Integer>>> keyed) {
+    this.unkeyed = unkeyed;
+    this.extractors = new Function[keyed.size()];
+    this.positions = new Map[keyed.size()];
+    this.all = new int[keyed.size()][];
+    int i = 0;
+    for(final Map.Entry<Function<?, ?>, Map<Object, List<Integer>>> entry : keyed.entrySet()) {
+      this.extractors[i] = (Function<Object, ?>) entry.getKey();
+      final Map<Object, int[]> positions = new HashMap<>();
+      final List<Integer> all = new ArrayList<>();
+      for(final Map.Entry<Object, List<Integer>> key : entry.getValue().entrySet()) {
+        positions.put(key.getKey(), toArray(key.getValue()));
+        all.addAll(key.getValue());
+      }
+      this.positions[i] = positions;
+      final int[] undecided = toArray(all);
+      Arrays.sort(undecided);
+      for(int j = 0; j < undecided.length; j++) {
+        undecided[j] = -1 - undecided[j];
+      }
+      this.all[i] = undecided;
+      i++;
+    }
+  }
+
+  static @Nullable KeyIndex create(final EventSubscriber<?>[] subscribers) {
+    Map<Function<?, ?>, Map<Object, List<Integer>>> keyed = null;
+    final List<Integer> unkeyed = new ArrayList<>(subscribers.length);
+    for(int i = 0; i < subscribers.length; i++) {
+      if(subscribers[i] instanceof KeyedEventSubscriber<?>) {
+        final KeyedEventSubscriber<?> subscriber = (KeyedEventSubscriber<?>) subscribers[i];
+        if(keyed == null) {
+          keyed = new IdentityHashMap<>();
+        }
+        keyed.computeIfAbsent(subscriber.extractor, key -> new HashMap<>()).computeIfAbsent(subscriber.key, key -> new ArrayList<>()).add(i);
+      } else {
+        unkeyed.add(i);
+      }
+    }
+    return keyed == null ? null : new KeyIndex(toArray(unkeyed), keyed);
+  }
+
+  // the positions to post an event to, in ascending order - see undecided(int) and position(int)
+  int[] targets(final Object event) {
+    int[] targets = this.unkeyed;
+    for(int i = 0; i < this.extractors.length; i++) {
+      int[] matched;
+      try {
+        matched = this.positions[i].get(this.extractors[i].apply(event));
+      } catch(final RuntimeException e) {
+        matched = this.all[i];
+      }
+      if(matched != null) {
+        targets = merge(targets, matched);
+      }
+    }
+    return targets; // not to be modified, it may be the unkeyed positions
+  }
+
+  // if the keyed subscriber at the target still has to check its key
+  static boolean undecided(final int target) {
+    return target < 0;
+  }
+
+  static int position(final int target) {
+    return target < 0 ? -1 - target : target;
+  }
+
+  private static int[] merge(final int[] a, final int[] b) {
+    final int[] merged = new int[a.length + b.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while(i < a.length && j < b.length) {
+      merged[k++] = position(a[i]) < position(b[j]) ? a[i++] : b[j++];
+    }
+    while(i < a.length) {
+      merged[k++] = a[i++];
+    }
+    while(j < b.length) {
+      merged[k++] = b[j++];
+    }
+    return merged;
+  }
+
+  private static int[] toArray(final List<Integer> list) {
+    final int[] array = new int[list.size()];
+    for(int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+}
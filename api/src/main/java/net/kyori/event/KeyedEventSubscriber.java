@@ -0,0 +1,79 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.Objects;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+// A subscriber that only wants events with a particular key. The bus indexes these by key when baking, so
+// that they are not even looked at for other keys, and invokes the wrapped subscriber directly once the index has
+// matched it - the check here is for when the index could not extract the key.
+final class KeyedEventSubscriber<E> implements EventSubscriber<E> {
+  final Function<? super E, ?> extractor;
+  final Object key;
+  final EventSubscriber<? super E> subscriber;
+
+  KeyedEventSubscriber(final Function<? super E, ?> extractor, final Object key, final EventSubscriber<? super E> subscriber) {
+    this.extractor = extractor;
+    this.key = key;
+    this.subscriber = subscriber;
+  }
+
+  // the subscriber that users know about, for reporting
+  static EventSubscriber<?> unwrap(final EventSubscriber<?> subscriber) {
+    return subscriber instanceof KeyedEventSubscriber<?> ? ((KeyedEventSubscriber<?>) subscriber).subscriber : subscriber;
+  }
+
+  boolean matches(final E event) {
+    return Objects.equals(this.extractor.apply(event), this.key);
+  }
+
+  @Override
+  public void on(final @NonNull E event) throws Throwable {
+    if(this.matches(event)) {
+      this.subscriber.on(event);
+    }
+  }
+
+  @Override
+  public int postOrder() {
+    return this.subscriber.postOrder();
+  }
+
+  @Override
+  public boolean acceptsCancelled() {
+    return this.subscriber.acceptsCancelled();
+  }
+
+  @Override
+  public boolean parallelSafe() {
+    return this.subscriber.parallelSafe();
+  }
+
+  @Override
+  public String toString() {
+    return "KeyedEventSubscriber{key=" + this.key + ", subscriber=" + this.subscriber + "}";
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Collects the {@link Subscribe subscriber methods} of a listener class.
+ *
+ * <p>Adapters are generated at compile time by the {@code event-annotation-processor}, as a public class
+ * named after the binary name of the listener with an {@code _EventSubscribers} suffix, in the same package -
+ * for {@code com.example.Outer.Listener}, this is {@code com.example.Outer$Listener_EventSubscribers}.</p>
+ *
+ * @param <L> the listener type
+ * @see EventBus#register(Object)
+ * @since 5.0.0
+ */
+public interface ListenerAdapter<L> {
+  /**
+   * The suffix of the name of generated adapters.
+   *
+   * @since 5.0.0
+   */
+  String SUFFIX = "_EventSubscribers";
+
+  /**
+   * Adds a subscriber for each subscriber method that the listener class declares to a group.
+   *
+   * <p>Subscriber methods inherited from a superclass are left to the adapter of that superclass, which
+   * calls an overriding method just the same.</p>
+   *
+   * @param group the group to add the subscribers to
+   * @param listener the listener
+   * @since 5.0.0
+   */
+  void subscribers(final SubscriptionGroup.@NonNull Builder<Object> group, final @NonNull L listener);
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Finds the generated adapters of listener classes - once per class, so that registering is just a call into
+// generated code after that.
+final class ListenerAdapters {
+  private static final ClassValue<List<ListenerAdapter<Object>>> ADAPTERS = new ClassValue<List<ListenerAdapter<Object>>>() {
+    @Override
+    protected List<ListenerAdapter<Object>> computeValue(final Class<?> type) {
+      // subscriber methods may be declared by superclasses too, each of which has its own adapter
+      final List<ListenerAdapter<Object>> adapters = new ArrayList<>();
+      for(Class<?> klass = type; klass != null && klass != Object.class; klass = klass.getSuperclass()) {
+        final ListenerAdapter<Object> adapter = find(klass);
+        if(adapter != null) {
+          adapters.add(adapter);
+        }
+      }
+      return Collections.unmodifiableList(adapters);
+    }
+  };
+
+  private ListenerAdapters() {
+  }
+
+  // every subscriber method of the listener and its superclasses is subscribed as a single group
+  @SuppressWarnings("unchecked")
+  static @NonNull EventSubscription register(final @NonNull EventBus<?> bus, final @NonNull Object listener) {
+    final List<ListenerAdapter<Object>> adapters = ADAPTERS.get(listener.getClass());
+    if(adapters.isEmpty()) {
+      throw new IllegalArgumentException("No generated adapter found for " + listener.getClass().getName() + " - does it have @Subscribe methods, and is the annotation processor enabled?");
+    }
+    final SubscriptionGroup.Builder<Object> builder = SubscriptionGroup.builder();
+    for(final ListenerAdapter<Object> adapter : adapters) {
+      adapter.subscribers(builder, listener);
+    }
+    final SubscriptionGroup<Object> group = builder.build();
+    // check every event type first, so that nothing is subscribed if one of them doesn't fit
+    for(int i = 0; i < group.size(); i++) {
+      if(!bus.type().isAssignableFrom(group.type(i))) {
+        throw new IllegalArgumentException(group.type(i) + " is not a subtype of " + bus.type());
+      }
+    }
+    return ((EventBus<Object>) bus).subscribe(group);
+  }
+
+  // unlike any name derived from the simple names of nested classes, the binary name can't be shared with another class
+  static @NonNull String adapterName(final @NonNull String binaryName) {
+    return binaryName + ListenerAdapter.SUFFIX;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static @Nullable ListenerAdapter<Object> find(final Class<?> type) {
+    final Class<?> adapter;
+    try {
+      adapter = Class.forName(adapterName(type.getName()), true, type.getClassLoader());
+    } catch(final ClassNotFoundException e) {
+      return null;
+    }
+    try {
+      return (ListenerAdapter<Object>) adapter.getConstructor().newInstance();
+    } catch(final ReflectiveOperationException e) {
+      throw new IllegalStateException("Could not create " + adapter.getName(), e);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Executors suitable for {@link EventBus#postAsync(Object, Executor) posting asynchronously}.
+ *
+ * @since 5.0.0
+ */
+public final class PostExecutors {
+  private static final @Nullable Executor VIRTUAL_THREADS = virtualThreads0();
+
+  private PostExecutors() {
+  }
+
+  /**
+   * Gets an executor that starts a new virtual thread for every post.
+   *
+   * <p>Virtual threads are only available on Java 21 and above.</p>
+   *
+   * @return an executor using virtual threads, or {@link Optional#empty()} if virtual threads are not available
+   * @since 5.0.0
+   */
+  public static @NonNull Optional<Executor> virtualThreads() {
+    return Optional.ofNullable(VIRTUAL_THREADS);
+  }
+
+  // this library targets java 8, so we have to find Thread.ofVirtual() reflectively
+  private static @Nullable Executor virtualThreads0() {
+    try {
+      final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      final Method name = builderType.getMethod("name", String.class, long.class);
+      final Method factory = builderType.getMethod("factory");
+      final Object builder = name.invoke(Thread.class.getMethod("ofVirtual").invoke(null), "event-post-", 0L);
+      final ThreadFactory threads = (ThreadFactory) factory.invoke(builder);
+      return command -> threads.newThread(command).start();
+    } catch(final ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+}
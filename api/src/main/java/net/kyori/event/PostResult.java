@@ -23,6 +23,7 @@
  */
 package net.kyori.event;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,10 +35,13 @@ import org.checkerframework.checker.nullness.qual.NonNull;
  * @since 2.0.0
  */
 public abstract class PostResult {
-  PostResult() {
+  private final Map<EventSubscriber<?>, Duration> overruns;
+
+  PostResult(final @NonNull Map<EventSubscriber<?>, Duration> overruns) {
     if(!(this instanceof Success || this instanceof Failure)) {
       throw new IllegalStateException();
     }
+    this.overruns = overruns;
   }
 
   /**
@@ -61,7 +65,33 @@ public abstract class PostResult {
     if(exceptions.isEmpty()) {
       throw new IllegalStateException("no exceptions present");
     }
-    return new Failure(new HashMap<>(exceptions));
+    return new Failure(new HashMap<>(exceptions), Collections.emptyMap());
+  }
+
+  /**
+   * Marks that an exception was thrown by a subscriber.
+   *
+   * @param subscriber the subscriber that threw
+   * @param exception the exception that was thrown
+   * @return a {@link PostResult} indicating failure
+   * @since 5.0.0
+   */
+  public static @NonNull PostResult failure(final @NonNull EventSubscriber<?> subscriber, final @NonNull Throwable exception) {
+    return new Failure(Collections.singletonMap(subscriber, exception), Collections.emptyMap());
+  }
+
+  // for maps created by the bus: ownership is handed over, so there is no need for a defensive copy
+  static @NonNull PostResult ownedFailure(final @NonNull Map<EventSubscriber<?>, Throwable> exceptions) {
+    return new Failure(exceptions, Collections.emptyMap());
+  }
+
+  // for posts watched by a SubscriberWatchdog: both maps are owned
+  static @NonNull PostResult watched(final @NonNull Map<EventSubscriber<?>, Throwable> exceptions, final @NonNull Map<EventSubscriber<?>, Duration> overruns) {
+    if(overruns.isEmpty()) {
+      return exceptions.isEmpty() ? success() : ownedFailure(exceptions);
+    }
+    final Map<EventSubscriber<?>, Duration> unmodifiable = Collections.unmodifiableMap(overruns);
+    return exceptions.isEmpty() ? new Success(unmodifiable) : new Failure(exceptions, unmodifiable);
   }
 
   /**
@@ -80,6 +110,19 @@ public abstract class PostResult {
    */
   public abstract @NonNull Map<EventSubscriber<?>, Throwable> exceptions();
 
+  /**
+   * Gets the subscribers that overran their budget whilst handling the event, and how long they took.
+   *
+   * <p>Overruns are only measured when the bus has a {@link SubscriberWatchdog watchdog}. An overrun
+   * does not make a post unsuccessful.</p>
+   *
+   * @return the subscribers that overran their budget
+   * @since 5.0.0
+   */
+  public @NonNull Map<EventSubscriber<?>, Duration> overruns() {
+    return this.overruns;
+  }
+
   /**
    * Raises a {@link CompositeException} if the posting was not
    * {@link #wasSuccessful() successful}.
@@ -93,7 +136,11 @@ public abstract class PostResult {
   public abstract String toString();
 
   private static final class Success extends PostResult {
-    static final Success INSTANCE = new Success();
+    static final Success INSTANCE = new Success(Collections.emptyMap());
+
+    private Success(final @NonNull Map<EventSubscriber<?>, Duration> overruns) {
+      super(overruns);
+    }
 
     @Override
     public boolean wasSuccessful() {
@@ -111,14 +158,15 @@ public abstract class PostResult {
 
     @Override
     public String toString() {
-      return "PostResult.success()";
+      return this.overruns().isEmpty() ? "PostResult.success()" : "PostResult.success(overruns=" + this.overruns() + ")";
     }
   }
 
   private static final class Failure extends PostResult {
     private final Map<EventSubscriber<?>, Throwable> exceptions;
 
-    private Failure(final @NonNull Map<EventSubscriber<?>, Throwable> exceptions) {
+    private Failure(final @NonNull Map<EventSubscriber<?>, Throwable> exceptions, final @NonNull Map<EventSubscriber<?>, Duration> overruns) {
+      super(overruns);
       this.exceptions = exceptions;
     }
 
@@ -139,7 +187,7 @@ public abstract class PostResult {
 
     @Override
     public String toString() {
-      return "PostResult.failure(" + this.exceptions + ")";
+      return this.overruns().isEmpty() ? "PostResult.failure(" + this.exceptions + ")" : "PostResult.failure(" + this.exceptions + ", overruns=" + this.overruns() + ")";
     }
   }
 
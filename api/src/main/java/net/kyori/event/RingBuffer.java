@@ -0,0 +1,102 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// A bounded lock-free queue over a ring of slots, each with a sequence number that says whose turn it is - after
+// Dmitry Vyukov's bounded MPMC queue. Producers and consumers only contend on their own position counter. More than
+// one consumer is allowed, so that producers can make room by dropping the oldest element.
+final class RingBuffer<E> {
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  RingBuffer(final int capacity) {
+    // with a single slot, the sequence a consumer leaves behind would be the one a producer leaves behind
+    final int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+    this.elements = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    for(int i = 0; i < size; i++) {
+      this.sequences.set(i, i);
+    }
+    this.mask = size - 1;
+  }
+
+  int capacity() {
+    return this.mask + 1;
+  }
+
+  int size() {
+    final long size = this.tail.get() - this.head.get();
+    return size <= 0 ? 0 : (int) Math.min(size, this.capacity());
+  }
+
+  boolean offer(final @NonNull E element) {
+    long position = this.tail.get();
+    while(true) {
+      final int index = (int) position & this.mask;
+      final long difference = this.sequences.get(index) - position;
+      if(difference == 0) {
+        if(this.tail.compareAndSet(position, position + 1)) {
+          this.elements.set(index, element);
+          this.sequences.set(index, position + 1);
+          return true;
+        }
+        position = this.tail.get();
+      } else if(difference < 0) {
+        return false; // full
+      } else {
+        position = this.tail.get();
+      }
+    }
+  }
+
+  @Nullable E poll() {
+    long position = this.head.get();
+    while(true) {
+      final int index = (int) position & this.mask;
+      final long difference = this.sequences.get(index) - (position + 1);
+      if(difference == 0) {
+        if(this.head.compareAndSet(position, position + 1)) {
+          final E element = this.elements.get(index);
+          this.elements.set(index, null);
+          this.sequences.set(index, position + this.mask + 1);
+          return element;
+        }
+        position = this.head.get();
+      } else if(difference < 0) {
+        return null; // empty, or the next element is still being written
+      } else {
+        position = this.head.get();
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a listener as a subscriber.
+ *
+ * <p>The method must not be {@code private} or {@code static}, and must take the event as its only
+ * parameter. The {@code event-annotation-processor} generates a {@link ListenerAdapter} for every class with
+ * subscriber methods at compile time, which {@link EventBus#register(Object)} uses to subscribe them -
+ * without any reflection.</p>
+ *
+ * <p>A method that overrides a subscriber method is subscribed once, as the method it overrides - with the
+ * post order and cancellation handling of the overridden method.</p>
+ *
+ * @since 5.0.0
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface Subscribe {
+  /**
+   * Gets the post order of the subscriber.
+   *
+   * @return the post order
+   * @see EventSubscriber#postOrder()
+   * @since 5.0.0
+   */
+  int postOrder() default PostOrders.NORMAL;
+
+  /**
+   * Gets if the subscriber accepts cancelled events.
+   *
+   * @return {@code true} if the subscriber accepts cancelled events
+   * @see EventSubscriber#acceptsCancelled()
+   * @since 5.0.0
+   */
+  boolean acceptsCancelled() default true;
+}
@@ -0,0 +1,403 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Watches how long subscribers take to handle events, and deals with the ones that take too long.
+ *
+ * <p>A watchdog is enabled by {@link EventBus.Builder#watchdog(SubscriberWatchdog) setting} it when
+ * creating a bus. Every invocation that takes longer than the subscriber's budget is an overrun, which is
+ * counted here and reported in the {@link PostResult#overruns() result} of the post.</p>
+ *
+ * <p>Subscribers that keep overrunning can be {@link Quarantine quarantined}, so that they no longer hold up
+ * the subscribers that come after them. Subscribers are told apart by identity, and everything recorded for
+ * one is discarded once it is unsubscribed - including when it is {@link Quarantine#DROP dropped}.</p>
+ *
+ * @since 5.0.0
+ */
+public final class SubscriberWatchdog {
+  private static final Comparator<Offender> WORST_FIRST = Comparator.comparingLong(Offender::overruns)
+    .thenComparingLong(Offender::worstNanos)
+    .reversed();
+  private final long budget;
+  private final Map<EventSubscriber<?>, Long> budgets;
+  private final Quarantine quarantine;
+  private final int quarantineAfter;
+  final Executor quarantineExecutor;
+  final LongSupplier ticker;
+  // subscribers are told apart by identity, like their budgets - guarded by its own lock, as overruns are rare
+  private final Map<EventSubscriber<?>, Tally> tallies = new IdentityHashMap<>();
+  // replaced on every change, so that it can be read on every invocation without a lock
+  private volatile Set<EventSubscriber<?>> quarantined = Collections.emptySet();
+
+  private SubscriberWatchdog(final Builder builder) {
+    this.budget = builder.budget;
+    this.budgets = builder.budgets.isEmpty() ? Collections.emptyMap() : new IdentityHashMap<>(builder.budgets);
+    this.quarantine = builder.quarantine;
+    this.quarantineAfter = builder.quarantineAfter;
+    this.quarantineExecutor = builder.quarantineExecutor;
+    this.ticker = builder.ticker;
+  }
+
+  /**
+   * Creates a builder for a watchdog.
+   *
+   * @param budget the time a subscriber may spend handling a single event
+   * @return a new builder
+   * @since 5.0.0
+   */
+  public static @NonNull Builder builder(final @NonNull Duration budget) {
+    return new Builder(budget);
+  }
+
+  /**
+   * Gets the time a subscriber may spend handling a single event.
+   *
+   * @param subscriber the subscriber
+   * @return the budget of the subscriber
+   * @since 5.0.0
+   */
+  public @NonNull Duration budget(final @NonNull EventSubscriber<?> subscriber) {
+    return Duration.ofNanos(this.budgetNanos(subscriber));
+  }
+
+  /**
+   * Gets if a subscriber has been quarantined.
+   *
+   * @param subscriber the subscriber
+   * @return {@code true} if the subscriber has been quarantined
+   * @since 5.0.0
+   */
+  public boolean quarantined(final @NonNull EventSubscriber<?> subscriber) {
+    return this.quarantined.contains(subscriber);
+  }
+
+  /**
+   * Gets every subscriber that has overrun its budget, worst offender first.
+   *
+   * <p>Offenders are ordered by the number of overruns, and then by their slowest invocation.</p>
+   *
+   * @return a snapshot of the offenders
+   * @since 5.0.0
+   */
+  public @NonNull List<Offender> offenders() {
+    final List<Offender> offenders;
+    synchronized(this.tallies) {
+      offenders = new ArrayList<>(this.tallies.size());
+      for(final Map.Entry<EventSubscriber<?>, Tally> entry : this.tallies.entrySet()) {
+        final Tally tally = entry.getValue();
+        offenders.add(new Offender(entry.getKey(), tally.overruns.sum(), tally.overrunNanos.sum(), tally.worstNanos.get(), this.quarantined(entry.getKey())));
+      }
+    }
+    offenders.sort(WORST_FIRST);
+    return offenders;
+  }
+
+  private long budgetNanos(final EventSubscriber<?> subscriber) {
+    if(this.budgets.isEmpty()) {
+      return this.budget;
+    }
+    final Long budget = this.budgets.get(subscriber);
+    return budget != null ? budget : this.budget;
+  }
+
+  // called by the bus after every invocation, returns true if the subscriber overran its budget
+  boolean overran(final EventSubscriber<?> subscriber, final long nanos) {
+    if(nanos <= this.budgetNanos(subscriber)) {
+      return false;
+    }
+    final Tally tally;
+    synchronized(this.tallies) {
+      tally = this.tallies.computeIfAbsent(subscriber, key -> new Tally());
+    }
+    tally.overruns.increment();
+    tally.overrunNanos.add(nanos);
+    tally.worstNanos.accumulateAndGet(nanos, Math::max);
+    return true;
+  }
+
+  // returns true only for the call that moves a subscriber into quarantine
+  boolean quarantine(final EventSubscriber<?> subscriber) {
+    if(this.quarantine == Quarantine.NONE) {
+      return false;
+    }
+    synchronized(this.tallies) {
+      final Tally tally = this.tallies.get(subscriber);
+      if(tally == null || tally.overruns.sum() < this.quarantineAfter || this.quarantined.contains(subscriber)) {
+        return false;
+      }
+      final Set<EventSubscriber<?>> quarantined = Collections.newSetFromMap(new IdentityHashMap<>());
+      quarantined.addAll(this.quarantined);
+      quarantined.add(subscriber);
+      this.quarantined = quarantined;
+      return true;
+    }
+  }
+
+  // called by the bus once a subscriber has been unsubscribed or dropped, so that nothing is kept for it
+  void unsubscribed(final EventSubscriber<?> subscriber) {
+    synchronized(this.tallies) {
+      this.tallies.remove(subscriber);
+      if(this.quarantined.contains(subscriber)) {
+        final Set<EventSubscriber<?>> quarantined = Collections.newSetFromMap(new IdentityHashMap<>());
+        quarantined.addAll(this.quarantined);
+        quarantined.remove(subscriber);
+        this.quarantined = quarantined;
+      }
+    }
+  }
+
+  boolean drops() {
+    return this.quarantine == Quarantine.DROP;
+  }
+
+  // true if the subscriber should be invoked away from the posting thread
+  boolean detached(final EventSubscriber<?> subscriber) {
+    return this.quarantine == Quarantine.ASYNC && !this.quarantined.isEmpty() && this.quarantined.contains(subscriber);
+  }
+
+  private static final class Tally {
+    final LongAdder overruns = new LongAdder();
+    final LongAdder overrunNanos = new LongAdder();
+    final AtomicLong worstNanos = new AtomicLong();
+  }
+
+  /**
+   * What happens to a subscriber once it has overrun its budget too often.
+   *
+   * @since 5.0.0
+   */
+  public enum Quarantine {
+    /**
+     * Overruns are only recorded.
+     *
+     * @since 5.0.0
+     */
+    NONE,
+    /**
+     * The subscriber is moved to an asynchronous lane, and is no longer waited for when posting.
+     *
+     * <p>Exceptions thrown by a quarantined subscriber can no longer be part of a {@link PostResult}, so they
+     * are passed to the {@link Thread#getUncaughtExceptionHandler() uncaught exception handler} instead.</p>
+     *
+     * @since 5.0.0
+     */
+    ASYNC,
+    /**
+     * The subscriber is unsubscribed from the bus.
+     *
+     * @since 5.0.0
+     */
+    DROP
+  }
+
+  /**
+   * A subscriber that has overrun its budget.
+   *
+   * @since 5.0.0
+   */
+  public static final class Offender {
+    private final EventSubscriber<?> subscriber;
+    private final long overruns;
+    private final long overrunNanos;
+    private final long worstNanos;
+    private final boolean quarantined;
+
+    Offender(final EventSubscriber<?> subscriber, final long overruns, final long overrunNanos, final long worstNanos, final boolean quarantined) {
+      this.subscriber = subscriber;
+      this.overruns = overruns;
+      this.overrunNanos = overrunNanos;
+      this.worstNanos = worstNanos;
+      this.quarantined = quarantined;
+    }
+
+    /**
+     * Gets the subscriber.
+     *
+     * @return the subscriber
+     * @since 5.0.0
+     */
+    public @NonNull EventSubscriber<?> subscriber() {
+      return this.subscriber;
+    }
+
+    /**
+     * Gets the number of times the subscriber has overrun its budget.
+     *
+     * @return the number of overruns
+     * @since 5.0.0
+     */
+    public long overruns() {
+      return this.overruns;
+    }
+
+    /**
+     * Gets the total time spent in invocations that overran, in nanoseconds.
+     *
+     * @return the time spent overrunning
+     * @since 5.0.0
+     */
+    public long overrunNanos() {
+      return this.overrunNanos;
+    }
+
+    /**
+     * Gets the time spent in the slowest invocation, in nanoseconds.
+     *
+     * @return the slowest invocation
+     * @since 5.0.0
+     */
+    public long worstNanos() {
+      return this.worstNanos;
+    }
+
+    /**
+     * Gets if the subscriber was quarantined.
+     *
+     * @return {@code true} if the subscriber was quarantined
+     * @since 5.0.0
+     */
+    public boolean quarantined() {
+      return this.quarantined;
+    }
+
+    @Override
+    public String toString() {
+      return "Offender{subscriber=" + this.subscriber + ", overruns=" + this.overruns + ", worstNanos=" + this.worstNanos + ", quarantined=" + this.quarantined + "}";
+    }
+  }
+
+  /**
+   * A builder for a {@link SubscriberWatchdog}.
+   *
+   * @since 5.0.0
+   */
+  public static final class Builder {
+    private final long budget;
+    private final Map<EventSubscriber<?>, Long> budgets = new IdentityHashMap<>();
+    private Quarantine quarantine = Quarantine.NONE;
+    private int quarantineAfter = 1;
+    private Executor quarantineExecutor = ForkJoinPool.commonPool();
+    private LongSupplier ticker = System::nanoTime;
+
+    Builder(final Duration budget) {
+      this.budget = nanos(budget);
+    }
+
+    /**
+     * Sets the budget of a single subscriber, instead of the default budget.
+     *
+     * @param subscriber the subscriber
+     * @param budget the time the subscriber may spend handling a single event
+     * @return this builder
+     * @since 5.0.0
+     */
+    public @NonNull Builder budget(final @NonNull EventSubscriber<?> subscriber, final @NonNull Duration budget) {
+      this.budgets.put(requireNonNull(subscriber, "subscriber"), nanos(budget));
+      return this;
+    }
+
+    /**
+     * Sets what happens to subscribers that overrun their budget too often.
+     *
+     * <p>Defaults to {@link Quarantine#NONE}.</p>
+     *
+     * @param quarantine what happens to the subscriber
+     * @param overruns the number of overruns after which a subscriber is quarantined
+     * @return this builder
+     * @since 5.0.0
+     */
+    public @NonNull Builder quarantine(final @NonNull Quarantine quarantine, final int overruns) {
+      if(overruns < 1) {
+        throw new IllegalArgumentException("overruns must be positive, got " + overruns);
+      }
+      this.quarantine = requireNonNull(quarantine, "quarantine");
+      this.quarantineAfter = overruns;
+      return this;
+    }
+
+    /**
+     * Sets the executor that {@link Quarantine#ASYNC asynchronously quarantined} subscribers are invoked on.
+     *
+     * <p>Defaults to the {@link ForkJoinPool#commonPool() common pool}.</p>
+     *
+     * @param executor the executor
+     * @return this builder
+     * @since 5.0.0
+     */
+    public @NonNull Builder quarantineExecutor(final @NonNull Executor executor) {
+      this.quarantineExecutor = requireNonNull(executor, "executor");
+      return this;
+    }
+
+    /**
+     * Sets the source of time that invocations are measured with, in nanoseconds.
+     *
+     * <p>Only the difference between two readings is used, as with {@link System#nanoTime()}, which is the
+     * default. A bus with this watchdog also reports these measurements to its {@link EventMetrics metrics}.</p>
+     *
+     * @param ticker the source of time
+     * @return this builder
+     * @since 5.0.0
+     */
+    public @NonNull Builder ticker(final @NonNull LongSupplier ticker) {
+      this.ticker = requireNonNull(ticker, "ticker");
+      return this;
+    }
+
+    /**
+     * Builds the watchdog.
+     *
+     * @return a watchdog
+     * @since 5.0.0
+     */
+    public @NonNull SubscriberWatchdog build() {
+      return new SubscriberWatchdog(this);
+    }
+
+    private static long nanos(final Duration budget) {
+      if(budget.isNegative()) {
+        throw new IllegalArgumentException("budget must not be negative, got " + budget);
+      }
+      return budget.toNanos();
+    }
+  }
+}
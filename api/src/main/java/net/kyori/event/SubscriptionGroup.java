@@ -0,0 +1,132 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A group of subscribers that are {@link EventBus#subscribe(SubscriptionGroup) subscribed} and unsubscribed together.
+ *
+ * <p>Subscribing a group takes the lock of each event type it subscribes to once, and the subscribers of each
+ * affected event type are baked again once for the whole group, rather than once per subscriber. Unsubscribing only looks
+ * at the event types that the group subscribed to, however many other subscribers the bus has - which
+ * makes groups suited to everything registered by a single owner, such as a plugin.</p>
+ *
+ * <p>A group is immutable, and may be subscribed more than once.</p>
+ *
+ * @param <E> the event type
+ * @since 5.0.0
+ */
+public final class SubscriptionGroup<E> {
+  private final List<Class<? extends E>> types;
+  private final List<EventSubscriber<? super E>> subscribers;
+
+  private SubscriptionGroup(final Builder<E> builder) {
+    this.types = Collections.unmodifiableList(new ArrayList<>(builder.types));
+    this.subscribers = Collections.unmodifiableList(new ArrayList<>(builder.subscribers));
+  }
+
+  /**
+   * Creates a builder for a subscription group.
+   *
+   * @param <E> the event type
+   * @return a builder
+   * @since 5.0.0
+   */
+  public static <E> @NonNull Builder<E> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Gets the number of subscribers in this group.
+   *
+   * @return the number of subscribers
+   * @since 5.0.0
+   */
+  public int size() {
+    return this.types.size();
+  }
+
+  // the event type of the subscriber at index
+  Class<? extends E> type(final int index) {
+    return this.types.get(index);
+  }
+
+  // erased: the bus only posts events of the matching type to it
+  EventSubscriber<? super E> subscriber(final int index) {
+    return this.subscribers.get(index);
+  }
+
+  @Override
+  public String toString() {
+    return "SubscriptionGroup{size=" + this.size() + "}";
+  }
+
+  /**
+   * A builder for a {@link SubscriptionGroup}.
+   *
+   * @param <E> the event type
+   * @since 5.0.0
+   */
+  public static final class Builder<E> {
+    private final List<Class<? extends E>> types = new ArrayList<>();
+    private final List<EventSubscriber<? super E>> subscribers = new ArrayList<>();
+
+    Builder() {
+    }
+
+    /**
+     * Adds a subscriber to the group.
+     *
+     * <p>Subscribers are subscribed in the order they are added.</p>
+     *
+     * @param event the event type
+     * @param subscriber the subscriber
+     * @param <T> the event type
+     * @return this builder
+     * @since 5.0.0
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends E> @NonNull Builder<E> add(final @NonNull Class<T> event, final @NonNull EventSubscriber<? super T> subscriber) {
+      this.types.add(requireNonNull(event, "event"));
+      this.subscribers.add((EventSubscriber<? super E>) requireNonNull(subscriber, "subscriber"));
+      return this;
+    }
+
+    /**
+     * Builds the group.
+     *
+     * @return a subscription group
+     * @since 5.0.0
+     */
+    public @NonNull SubscriptionGroup<E> build() {
+      return new SubscriptionGroup<>(this);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * An event subscriber that only holds its listener weakly.
+ *
+ * <p>The listener is handed to the subscriber with each event, so the subscriber does not have to
+ * capture it - a subscriber that does would keep the listener reachable, and it would never expire.</p>
+ *
+ * @param <L> the listener type
+ * @param <E> the event type
+ * @see EventBus#subscribeWeakly(Class, Object, WeakEventSubscriber)
+ * @since 5.0.0
+ */
+@FunctionalInterface
+public interface WeakEventSubscriber<L, E> {
+  /**
+   * Invokes this event subscriber.
+   *
+   * @param listener the listener
+   * @param event the event
+   * @since 5.0.0
+   */
+  void on(final @NonNull L listener, final @NonNull E event) throws Throwable;
+
+  /**
+   * Gets the post order this subscriber should be called at.
+   *
+   * @return the post order of this subscriber
+   * @see EventSubscriber#postOrder()
+   * @since 5.0.0
+   */
+  default int postOrder() {
+    return PostOrders.NORMAL;
+  }
+
+  /**
+   * Gets if cancelled events should be consumed by this subscriber.
+   *
+   * @return {@code true} if cancelled events should be consumed, {@code false} otherwise
+   * @see EventSubscriber#acceptsCancelled()
+   * @since 5.0.0
+   */
+  default boolean acceptsCancelled() {
+    return true;
+  }
+
+  /**
+   * Gets if this subscriber may be called at the same time as other subscribers with the same {@link #postOrder() post order}.
+   *
+   * @return {@code true} if this subscriber is parallel safe, {@code false} otherwise
+   * @see EventSubscriber#parallelSafe()
+   * @since 5.0.0
+   */
+  default boolean parallelSafe() {
+    return false;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// A subscriber holding its listener weakly. Once the listener is collected, the subscriber unsubscribes itself - when
+// it is next posted to, or when the bus polls its reference queue, whichever comes first. Strong subscribers never
+// pay for any of this.
+final class WeakSubscriber<L, E> extends WeakReference<L> implements EventSubscriber<E> {
+  private final WeakEventSubscriber<? super L, ? super E> subscriber;
+  private volatile @Nullable EventSubscription subscription;
+
+  WeakSubscriber(final L listener, final WeakEventSubscriber<? super L, ? super E> subscriber, final @Nullable ReferenceQueue<Object> queue) {
+    super(listener, queue);
+    this.subscriber = subscriber;
+  }
+
+  // called once subscribed, with the subscription that expiring undoes
+  void subscribed(final EventSubscription subscription) {
+    this.subscription = subscription;
+    if(this.get() == null) {
+      this.expire(); // collected before the subscription was known
+    }
+  }
+
+  // Unsubscribes the subscribers whose listener has been collected, but that were not posted to since. Expired
+  // subscribers that are posted to unsubscribe themselves, so this is only needed for those that never are.
+  static void expire(final ReferenceQueue<Object> queue) {
+    Reference<?> reference;
+    while((reference = queue.poll()) != null) {
+      ((WeakSubscriber<?, ?>) reference).expire();
+    }
+  }
+
+  void expire() {
+    final EventSubscription subscription = this.subscription;
+    if(subscription != null) {
+      this.subscription = null;
+      subscription.unsubscribe();
+    }
+  }
+
+  @Override
+  public void on(final @NonNull E event) throws Throwable {
+    final L listener = this.get();
+    if(listener != null) {
+      this.subscriber.on(listener, event);
+    } else {
+      this.expire();
+    }
+  }
+
+  @Override
+  public int postOrder() {
+    return this.subscriber.postOrder();
+  }
+
+  @Override
+  public boolean acceptsCancelled() {
+    return this.subscriber.acceptsCancelled();
+  }
+
+  @Override
+  public boolean parallelSafe() {
+    return this.subscriber.parallelSafe();
+  }
+
+  @Override
+  public String toString() {
+    return "WeakSubscriber{listener=" + this.get() + ", subscriber=" + this.subscriber + "}";
+  }
+}
@@ -23,11 +23,28 @@
  */
 package net.kyori.event;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class EventBusTest {
@@ -46,6 +63,43 @@ class EventBusTest {
     assertEquals(1, event.touches);
   }
 
+  @Test
+  void testSubscribedDoesNotBake() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final EventBus<Object> bus = EventBus.builder(Object.class).metrics(metrics).build();
+    final EventSubscription subscription = bus.subscribe(Cancellable.class, event -> { });
+    assertTrue(bus.subscribed(TestEvent.class));
+    assertFalse(bus.subscribed(String.class));
+    assertEquals(0, metrics.bakes());
+    bus.post(new TestEvent());
+    assertEquals(1, metrics.bakes());
+    subscription.unsubscribe();
+    assertFalse(bus.subscribed(TestEvent.class));
+    assertFalse(bus.subscribed(AbstractCancellable.class));
+    assertEquals(1, metrics.bakes());
+  }
+
+  @Test
+  void testPostSupplier() {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final AtomicInteger created = new AtomicInteger();
+    assertFalse(bus.subscribed(TestEvent.class));
+    assertTrue(bus.post(TestEvent.class, () -> {
+      created.incrementAndGet();
+      return new TestEvent();
+    }).wasSuccessful());
+    assertEquals(0, created.get());
+    final List<String> calls = new ArrayList<>();
+    bus.subscribe(Cancellable.class, recording(calls, "cancellable", PostOrders.NORMAL));
+    assertTrue(bus.subscribed(TestEvent.class));
+    bus.post(TestEvent.class, () -> {
+      created.incrementAndGet();
+      return new TestEvent();
+    });
+    assertEquals(1, created.get());
+    assertEquals(Collections.singletonList("cancellable"), calls);
+  }
+
   @Test
   void testCancellable() {
     final EventBus<Object> bus = EventBus.create(Object.class);
@@ -68,7 +122,742 @@ class EventBusTest {
     assertEquals(1, event.touches);
   }
 
+  @Test
+  void testCancelledSkipsToSubscribersAcceptingIt() {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final List<String> calls = new ArrayList<>();
+    bus.subscribe(TestEvent.class, new EventSubscriber<TestEvent>() {
+      @Override
+      public void on(final @NonNull TestEvent event) {
+        calls.add("cancel");
+        event.cancelled(true);
+      }
+
+      @Override
+      public int postOrder() {
+        return PostOrders.FIRST;
+      }
+    });
+    bus.subscribe(TestEvent.class, notAcceptingCancelled(calls, "normal", PostOrders.NORMAL));
+    bus.subscribe(TestEvent.class, new EventSubscriber<TestEvent>() {
+      @Override
+      public void on(final @NonNull TestEvent event) {
+        calls.add("uncancel");
+        event.cancelled(false);
+      }
+
+      @Override
+      public int postOrder() {
+        return PostOrders.LATE;
+      }
+    });
+    bus.subscribe(TestEvent.class, notAcceptingCancelled(calls, "last", PostOrders.LAST));
+    bus.post(new TestEvent());
+    assertEquals(Arrays.asList("cancel", "uncancel", "last"), calls);
+    calls.clear();
+    final TestEvent cancelled = new TestEvent();
+    cancelled.cancelled(true);
+    bus.unsubscribeIf(subscriber -> subscriber.acceptsCancelled());
+    bus.post(cancelled);
+    assertTrue(calls.isEmpty());
+  }
+
+  @Test
+  void testPostAsync() {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final Thread caller = Thread.currentThread();
+    final List<Thread> threads = new ArrayList<>();
+    bus.subscribe(TestEvent.class, event -> {
+      threads.add(Thread.currentThread());
+      event.cancelled(true);
+    });
+    bus.subscribe(TestEvent.class, new EventSubscriber<TestEvent>() {
+      @Override
+      public void on(final @NonNull TestEvent event) {
+        event.touches++;
+      }
+
+      @Override
+      public boolean acceptsCancelled() {
+        return false;
+      }
+    });
+    bus.subscribe(TestEvent.class, event -> {
+      throw new IllegalStateException();
+    });
+    final TestEvent event = new TestEvent();
+    final PostResult result = bus.postAsync(event, command -> new Thread(command).start()).join();
+    assertEquals(1, result.exceptions().size());
+    assertEquals(0, event.touches);
+    assertEquals(1, threads.size());
+    assertNotSame(caller, threads.get(0));
+  }
+
+  @Test
+  void testPostExecutors() throws Exception {
+    // virtual threads where the runtime has them, which is only known by trying - and nothing where it doesn't, which
+    // is what runs before java 21
+    boolean available;
+    try {
+      Thread.class.getMethod("ofVirtual").invoke(null);
+      available = true;
+    } catch(final ReflectiveOperationException e) {
+      available = false;
+    }
+    final Optional<Executor> executor = PostExecutors.virtualThreads();
+    assertEquals(available, executor.isPresent());
+    if(available) {
+      final EventBus<Object> bus = EventBus.create(Object.class);
+      final List<Thread> threads = new ArrayList<>();
+      bus.subscribe(TestEvent.class, event -> threads.add(Thread.currentThread()));
+      assertTrue(bus.postAsync(new TestEvent(), executor.get()).join().wasSuccessful());
+      assertEquals(1, threads.size());
+      assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(threads.get(0)));
+      assertTrue(threads.get(0).getName().startsWith("event-post-"));
+    }
+  }
+
+  @Test
+  void testParallelDispatch() {
+    final EventBus<Object> bus = EventBus.builder(Object.class).parallelDispatch(command -> new Thread(command).start()).build();
+    final CountDownLatch latch = new CountDownLatch(2);
+    final AtomicInteger met = new AtomicInteger();
+    final EventSubscriber<TestEvent> parallel = new EventSubscriber<TestEvent>() {
+      @Override
+      public void on(final @NonNull TestEvent event) throws InterruptedException {
+        latch.countDown();
+        // only returns true if both subscribers are running at the same time
+        if(latch.await(5, TimeUnit.SECONDS)) {
+          met.incrementAndGet();
+        }
+      }
+
+      @Override
+      public boolean parallelSafe() {
+        return true;
+      }
+    };
+    bus.subscribe(TestEvent.class, parallel);
+    bus.subscribe(TestEvent.class, parallel);
+    bus.subscribe(TestEvent.class, recording(new ArrayList<>(), "late", PostOrders.LATE));
+    bus.subscribe(TestEvent.class, new EventSubscriber<TestEvent>() {
+      @Override
+      public void on(final @NonNull TestEvent event) {
+        event.touches = met.get();
+        throw new IllegalStateException();
+      }
+
+      @Override
+      public int postOrder() {
+        return PostOrders.LAST;
+      }
+    });
+    final TestEvent event = new TestEvent();
+    assertEquals(1, bus.post(event).exceptions().size());
+    assertEquals(2, event.touches);
+  }
+
+  @Test
+  void testFailures() {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final IllegalStateException first = new IllegalStateException();
+    final IllegalArgumentException second = new IllegalArgumentException();
+    final EventSubscriber<TestEvent> a = event -> {
+      throw first;
+    };
+    final EventSubscriber<TestEvent> b = event -> {
+      if(event.touches > 0) {
+        throw second;
+      }
+    };
+    bus.subscribe(TestEvent.class, a);
+    bus.subscribe(TestEvent.class, b);
+    final TestEvent event = new TestEvent();
+    final PostResult single = bus.post(event);
+    assertFalse(single.wasSuccessful());
+    assertEquals(Collections.singletonMap(a, first), single.exceptions());
+    event.touches = 1;
+    final PostResult both = bus.post(event);
+    assertEquals(2, both.exceptions().size());
+    assertSame(second, both.exceptions().get(b));
+    final List<Throwable> handled = new ArrayList<>();
+    assertFalse(bus.post(event, (subscriber, exception) -> handled.add(exception)));
+    assertEquals(Arrays.asList(first, second), handled);
+    assertTrue(bus.post("unrelated", (subscriber, exception) -> handled.add(exception)));
+  }
+
+  @Test
+  void testPostAll() {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final List<String> calls = new ArrayList<>();
+    final List<Integer> batches = new ArrayList<>();
+    final IllegalStateException exception = new IllegalStateException();
+    bus.subscribe(TestEvent.class, event -> {
+      event.touches++;
+      event.cancelled(event.touches == 2);
+    });
+    bus.subscribe(TestEvent.class, new BatchEventSubscriber<TestEvent>() {
+      @Override
+      public void onBatch(final @NonNull List<? extends TestEvent> events) {
+        batches.add(events.size());
+      }
+
+      @Override
+      public boolean acceptsCancelled() {
+        return false;
+      }
+    });
+    bus.subscribe(Object.class, recording(calls, "object", PostOrders.LATE));
+    final EventSubscriber<Object> throwing = event -> {
+      throw exception;
+    };
+    bus.subscribe(String.class, throwing);
+    final TestEvent cancelled = new TestEvent();
+    cancelled.touches = 1;
+    final PostResult result = bus.postAll(Arrays.asList(new TestEvent(), "a", cancelled, new TestEvent(), "b"));
+    assertEquals(Arrays.asList(2), batches);
+    assertEquals(5, calls.size());
+    assertEquals(1, result.exceptions().size());
+    assertSame(exception, result.exceptions().get(throwing));
+    assertTrue(bus.postAll(Arrays.asList()).wasSuccessful());
+  }
+
+  @Test
+  void testMetrics() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final EventBus<Object> bus = EventBus.builder(Object.class).metrics(metrics).build();
+    final EventSubscriber<TestEvent> cancelling = event -> event.cancelled(true);
+    final EventSubscription subscription = bus.subscribe(TestEvent.class, cancelling);
+    bus.subscribe(TestEvent.class, new EventSubscriber<TestEvent>() {
+      @Override
+      public void on(final @NonNull TestEvent event) {
+      }
+
+      @Override
+      public boolean acceptsCancelled() {
+        return false;
+      }
+    });
+    bus.subscribe(TestEvent.class, event -> {
+      throw new IllegalStateException();
+    });
+    assertFalse(bus.post(new TestEvent()).wasSuccessful());
+    assertFalse(bus.post(new TestEvent()).wasSuccessful());
+    assertEquals(2, metrics.posts(TestEvent.class));
+    assertEquals(2, metrics.rejections(TestEvent.class));
+    assertEquals(2, metrics.failures(TestEvent.class));
+    assertEquals(2, metrics.latency(cancelling).count());
+    assertEquals(1, metrics.bakes());
+    bus.subscribe(Object.class, event -> { });
+    assertEquals(1, metrics.rebakes());
+    // subscribers are told apart by identity, and kept until their last subscription is gone
+    final EventSubscription again = bus.subscribe(TestEvent.class, cancelling);
+    final EventSubscriber<Object> equal = new Equal();
+    final EventSubscriber<Object> other = new Equal();
+    bus.subscribe(Object.class, equal);
+    bus.subscribe(Object.class, other);
+    bus.post("test");
+    assertEquals(1, metrics.latency(equal).count());
+    assertEquals(1, metrics.latency(other).count());
+    subscription.unsubscribe();
+    assertEquals(2, metrics.latency(cancelling).count());
+    again.unsubscribe();
+    assertNull(metrics.latency(cancelling));
+    metrics.reset();
+    assertEquals(0, metrics.posts(TestEvent.class));
+    assertEquals(0, metrics.latency(equal).count());
+  }
+
+  @Test
+  void testWatchdog() {
+    final List<String> calls = new ArrayList<>();
+    final AtomicLong ticker = new AtomicLong();
+    final EventSubscriber<TestEvent> slow = event -> {
+      calls.add("slow");
+      ticker.addAndGet(Duration.ofMillis(5).toNanos());
+    };
+    // over the default budget, but not over its own
+    final EventSubscriber<TestEvent> fast = event -> {
+      calls.add("fast");
+      ticker.addAndGet(Duration.ofMillis(2).toNanos());
+    };
+    final SubscriberWatchdog watchdog = SubscriberWatchdog.builder(Duration.ofMillis(1))
+      .budget(fast, Duration.ofMillis(2))
+      .quarantine(SubscriberWatchdog.Quarantine.DROP, 2)
+      .ticker(ticker::get)
+      .build();
+    final EventBus<Object> bus = EventBus.builder(Object.class).watchdog(watchdog).build();
+    bus.subscribe(TestEvent.class, slow);
+    bus.subscribe(TestEvent.class, fast);
+    final PostResult result = bus.post(new TestEvent());
+    assertTrue(result.wasSuccessful());
+    assertEquals(Collections.singletonMap(slow, Duration.ofMillis(5)), result.overruns());
+    assertFalse(watchdog.quarantined(slow));
+    final List<SubscriberWatchdog.Offender> offenders = watchdog.offenders();
+    assertEquals(1, offenders.size());
+    assertSame(slow, offenders.get(0).subscriber());
+    assertEquals(1, offenders.get(0).overruns());
+    assertEquals(Duration.ofMillis(5).toNanos(), offenders.get(0).worstNanos());
+    assertFalse(offenders.get(0).quarantined());
+    assertEquals(Collections.singletonMap(slow, Duration.ofMillis(5)), bus.post(new TestEvent()).overruns());
+    assertTrue(bus.post(new TestEvent()).overruns().isEmpty());
+    assertEquals(Arrays.asList("slow", "fast", "slow", "fast", "fast"), calls);
+    // dropped, and so forgotten
+    assertFalse(watchdog.quarantined(slow));
+    assertEquals(Collections.emptyList(), watchdog.offenders());
+  }
+
+  @Test
+  void testWatchdogAsyncQuarantine() {
+    final List<Runnable> lane = new ArrayList<>();
+    final List<String> calls = new ArrayList<>();
+    final AtomicLong ticker = new AtomicLong();
+    final EventSubscriber<TestEvent> slow = event -> {
+      calls.add("slow");
+      ticker.addAndGet(Duration.ofMillis(5).toNanos());
+    };
+    final SubscriberWatchdog watchdog = SubscriberWatchdog.builder(Duration.ofMillis(1))
+      .quarantine(SubscriberWatchdog.Quarantine.ASYNC, 1)
+      .quarantineExecutor(lane::add)
+      .ticker(ticker::get)
+      .build();
+    final EventBus<Object> bus = EventBus.builder(Object.class).watchdog(watchdog).build();
+    final EventSubscription subscription = bus.subscribe(TestEvent.class, slow);
+    assertEquals(Collections.singletonMap(slow, Duration.ofMillis(5)), bus.post(new TestEvent()).overruns());
+    assertTrue(watchdog.quarantined(slow));
+    assertTrue(bus.post(new TestEvent()).overruns().isEmpty());
+    assertEquals(Collections.singletonList("slow"), calls);
+    assertEquals(1, lane.size());
+    lane.get(0).run();
+    assertEquals(Arrays.asList("slow", "slow"), calls);
+    // invocations in quarantine are no longer measured
+    assertEquals(1, watchdog.offenders().get(0).overruns());
+    subscription.unsubscribe();
+    assertFalse(watchdog.quarantined(slow));
+    assertEquals(Collections.emptyList(), watchdog.offenders());
+  }
+
+  @Test
+  void testBakedTypesAreEvictedAndPurged() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final EventBus<Object> bus = EventBus.builder(Object.class).metrics(metrics).maximumBakedTypes(1).build();
+    final List<String> calls = new ArrayList<>();
+    bus.subscribe(Object.class, recording(calls, "object", PostOrders.NORMAL));
+    bus.post(new TestEvent());
+    bus.post("string");
+    bus.post(new TestEvent());
+    assertEquals(3, metrics.bakes());
+    bus.post(new TestEvent());
+    assertEquals(3, metrics.bakes());
+    bus.purge(TestEvent.class.getClassLoader());
+    bus.subscribe(TestEvent.class, recording(calls, "test", PostOrders.LATE));
+    bus.post(new TestEvent());
+    assertEquals(4, metrics.bakes());
+    assertEquals(Arrays.asList("object", "object", "object", "object", "object", "test"), calls);
+  }
+
+  @Test
+  void testPrebake() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final EventBus<Object> bus = EventBus.builder(Object.class).metrics(metrics).build();
+    final List<String> calls = new ArrayList<>();
+    bus.subscribe(Object.class, recording(calls, "object", PostOrders.NORMAL));
+    bus.prebake(Arrays.asList(TestEvent.class, String.class));
+    assertEquals(2, metrics.bakes());
+    bus.subscribe(TestEvent.class, recording(calls, "test", PostOrders.EARLY));
+    bus.post(new TestEvent());
+    bus.post("string");
+    assertEquals(2, metrics.bakes());
+    assertEquals(Arrays.asList("test", "object", "object"), calls);
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    final Collection<Class<? extends CharSequence>> unrelated = (Collection) Collections.singleton(Integer.class);
+    assertThrows(IllegalArgumentException.class, () -> EventBus.create(CharSequence.class).prebake(unrelated));
+  }
+
+  @Test
+  void testBackgroundBaking() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final List<Runnable> baker = new ArrayList<>();
+    final EventBus<Object> bus = EventBus.builder(Object.class).metrics(metrics).backgroundBaking(baker::add).build();
+    bus.subscribe(TestEvent.class, event -> { });
+    bus.subscribe(TestEvent.class, event -> { });
+    assertEquals(2, baker.size());
+    baker.forEach(Runnable::run);
+    assertEquals(1, metrics.bakes());
+    bus.post(new TestEvent());
+    assertEquals(1, metrics.bakes());
+    bus.subscribe(TestEvent.class, event -> { });
+    assertEquals(2, baker.size());
+  }
+
+  @Test
+  void testChildBus() {
+    final EventBus<Object> parent = EventBus.create(Object.class);
+    final List<String> calls = new ArrayList<>();
+    parent.subscribe(TestEvent.class, recording(calls, "parent", PostOrders.NORMAL));
+    final ChildEventBus<Object> child = parent.child();
+    assertSame(parent, child.parent());
+    assertTrue(child.subscribed(TestEvent.class));
+    assertFalse(child.subscribed(String.class));
+    final EventSubscription early = child.subscribe(TestEvent.class, recording(calls, "child early", PostOrders.EARLY));
+    child.subscribe(Object.class, recording(calls, "child normal", PostOrders.NORMAL));
+    child.post(new TestEvent());
+    assertEquals(Arrays.asList("child early", "parent", "child normal"), calls);
+    calls.clear();
+    parent.post(new TestEvent());
+    assertEquals(Collections.singletonList("parent"), calls);
+    calls.clear();
+    // changes to the parent are seen by the child
+    parent.subscribe(TestEvent.class, recording(calls, "parent late", PostOrders.LATE));
+    final ChildEventBus<Object> grandchild = child.child();
+    grandchild.subscribe(TestEvent.class, recording(calls, "grandchild", PostOrders.FIRST));
+    grandchild.post(new TestEvent());
+    assertEquals(Arrays.asList("grandchild", "child early", "parent", "child normal", "parent late"), calls);
+    calls.clear();
+    // and so are changes to the child
+    early.unsubscribe();
+    grandchild.post(new TestEvent());
+    assertEquals(Arrays.asList("grandchild", "parent", "child normal", "parent late"), calls);
+    calls.clear();
+    child.close();
+    assertTrue(child.closed());
+    assertThrows(IllegalStateException.class, () -> child.post(new TestEvent()));
+    assertThrows(IllegalStateException.class, () -> child.subscribe(TestEvent.class, event -> { }));
+    assertThrows(IllegalStateException.class, () -> grandchild.post(new TestEvent()));
+    parent.post(new TestEvent());
+    assertEquals(Arrays.asList("parent", "parent late"), calls);
+  }
+
+  @Test
+  void testSubscriptionGroup() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final EventBus<Object> bus = EventBus.builder(Object.class).metrics(metrics).build();
+    final List<String> calls = new ArrayList<>();
+    final EventSubscriber<Object> shared = recording(calls, "shared", PostOrders.LATE);
+    bus.subscribe(Object.class, shared);
+    bus.post(new TestEvent());
+    assertEquals(1, metrics.bakes());
+    calls.clear();
+    final SubscriptionGroup<Object> group = SubscriptionGroup.builder()
+      .add(TestEvent.class, recording(calls, "first", PostOrders.NORMAL))
+      .add(Object.class, recording(calls, "second", PostOrders.NORMAL))
+      .add(Object.class, shared)
+      .add(TestEvent.class, recording(calls, "early", PostOrders.EARLY))
+      .build();
+    final EventSubscription subscription = bus.subscribe(group);
+    // baked once for the whole group
+    assertEquals(1, metrics.rebakes());
+    bus.post(new TestEvent());
+    assertEquals(Arrays.asList("early", "first", "second", "shared", "shared"), calls);
+    calls.clear();
+    subscription.unsubscribe();
+    subscription.unsubscribe();
+    assertEquals(2, metrics.rebakes());
+    // the registration made outside of the group is kept
+    bus.post(new TestEvent());
+    assertEquals(Collections.singletonList("shared"), calls);
+  }
+
+  @Test
+  void testWeakSubscribers() {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final List<String> calls = new ArrayList<>();
+    final Object listener = new Object();
+    bus.subscribeWeakly(TestEvent.class, listener, (owner, event) -> calls.add("test"));
+    bus.subscribeWeakly(String.class, listener, (owner, event) -> calls.add("string"));
+    bus.post(new TestEvent());
+    assertEquals(Collections.singletonList("test"), calls);
+    calls.clear();
+    // what the collector would do once the listener is gone
+    final List<WeakSubscriber<?, ?>> weak = new ArrayList<>();
+    bus.unsubscribeIf(subscriber -> {
+      weak.add((WeakSubscriber<?, ?>) subscriber);
+      return false;
+    });
+    assertEquals(2, weak.size());
+    for(final WeakSubscriber<?, ?> subscriber : weak) {
+      subscriber.clear();
+      assertTrue(subscriber.enqueue());
+    }
+    // posted to once more, and finds that it has expired
+    bus.post(new TestEvent());
+    assertFalse(bus.subscribed(TestEvent.class));
+    // never posted to, so left for the bus to notice
+    assertTrue(bus.subscribed(String.class));
+    bus.subscribe(Integer.class, event -> { });
+    assertFalse(bus.subscribed(String.class));
+    assertEquals(Collections.emptyList(), calls);
+    // and the same for a child, which has a queue of its own
+    final ChildEventBus<Object> child = bus.child();
+    child.subscribeWeakly(String.class, listener, (owner, event) -> calls.add("child"));
+    final List<WeakSubscriber<?, ?>> childWeak = new ArrayList<>();
+    child.unsubscribeIf(subscriber -> {
+      childWeak.add((WeakSubscriber<?, ?>) subscriber);
+      return false;
+    });
+    assertEquals(1, childWeak.size());
+    childWeak.get(0).clear();
+    assertTrue(childWeak.get(0).enqueue());
+    assertTrue(child.subscribed(String.class));
+    child.subscribe(Integer.class, event -> { });
+    assertFalse(child.subscribed(String.class));
+    assertEquals(Collections.emptyList(), calls);
+  }
+
+  @Test
+  void testConcurrentSubscriptions() throws InterruptedException {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final AtomicInteger shared = new AtomicInteger();
+    bus.subscribe(Object.class, event -> shared.incrementAndGet());
+    // every thread churns its own type, while sharing the ancestry of the others
+    final Class<?>[] types = {TestEvent.class, String.class, Integer.class, ArrayList.class};
+    final Object[] events = {new TestEvent(), "string", 1, new ArrayList<>()};
+    final AtomicInteger own = new AtomicInteger();
+    final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+    final List<Thread> threads = new ArrayList<>();
+    for(int i = 0; i < types.length; i++) {
+      final Class<?> type = types[i];
+      final Object event = events[i];
+      threads.add(new Thread(() -> {
+        try {
+          for(int j = 0; j < 1000; j++) {
+            final EventSubscription subscription = bus.subscribe(type, e -> own.incrementAndGet());
+            assertTrue(bus.post(event).wasSuccessful());
+            subscription.unsubscribe();
+            if(j % 100 == 0) {
+              bus.purge(EventBusTest.class.getClassLoader());
+            }
+          }
+        } catch(final Throwable t) {
+          failures.add(t);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for(final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.emptyList(), failures);
+    assertEquals(4000, own.get());
+    assertEquals(4000, shared.get());
+    // nothing is left behind in the baked subscribers of any type
+    shared.set(0);
+    own.set(0);
+    bus.postAll(Arrays.asList(events));
+    assertEquals(4, shared.get());
+    assertEquals(0, own.get());
+  }
+
+  @Test
+  void testKeyedSubscriptions() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final EventBus<Object> bus = EventBus.builder(Object.class).metrics(metrics).build();
+    final List<String> calls = new ArrayList<>();
+    final AtomicInteger extracted = new AtomicInteger();
+    final Function<TestEvent, Integer> touches = event -> {
+      extracted.incrementAndGet();
+      return event.touches;
+    };
+    bus.subscribe(TestEvent.class, touches, 1, recording(calls, "one", PostOrders.LATE));
+    final EventSubscriber<TestEvent> two = recording(calls, "two", PostOrders.EARLY);
+    bus.subscribe(TestEvent.class, touches, 2, two);
+    bus.subscribe(TestEvent.class, recording(calls, "all", PostOrders.NORMAL));
+    final TestEvent event = new TestEvent();
+    event.touches = 2;
+    bus.post(event);
+    event.touches = 1;
+    bus.post(event);
+    event.touches = 3;
+    bus.post(event);
+    assertEquals(Arrays.asList("two", "all", "all", "one", "all"), calls);
+    // only the subscribers that matched were invoked, and the key was only extracted by the index
+    assertEquals(1, metrics.latency(two).count());
+    assertEquals(3, extracted.get());
+    // batches go through the index too
+    calls.clear();
+    event.touches = 2;
+    final TestEvent other = new TestEvent();
+    other.touches = 1;
+    assertTrue(bus.postAll(Arrays.asList(event, other)).wasSuccessful());
+    assertEquals(Arrays.asList("two", "all", "all", "one"), calls);
+    assertEquals(5, extracted.get());
+    bus.unsubscribeIf(subscriber -> (Object) subscriber == two);
+    calls.clear();
+    event.touches = 2;
+    bus.post(event);
+    assertEquals(Collections.singletonList("all"), calls);
+  }
+
+  @Test
+  void testEveryPostStopsOnceCancelled() {
+    final EventMetrics.Recorder metrics = EventMetrics.recorder();
+    final List<EventBus<Object>> buses = Arrays.asList(
+      EventBus.builder(Object.class).metrics(metrics).build(),
+      EventBus.builder(Object.class).metrics(metrics).parallelDispatch(Runnable::run).build()
+    );
+    for(final EventBus<Object> bus : buses) {
+      final List<String> calls = new ArrayList<>();
+      bus.subscribe(TestEvent.class, new EventSubscriber<TestEvent>() {
+        @Override
+        public void on(final @NonNull TestEvent event) {
+          calls.add("cancel");
+          event.cancelled(true);
+        }
+
+        @Override
+        public int postOrder() {
+          return PostOrders.FIRST;
+        }
+      });
+      bus.subscribe(TestEvent.class, event -> event.touches, 0, notAcceptingCancelled(calls, "keyed", PostOrders.NORMAL));
+      bus.subscribe(TestEvent.class, notAcceptingCancelled(calls, "skipped", PostOrders.LATE));
+      assertTrue(bus.post(new TestEvent()).wasSuccessful());
+      assertTrue(bus.post(new TestEvent(), (subscriber, t) -> { }));
+      assertTrue(bus.postAll(Arrays.asList(new TestEvent(), new TestEvent())).wasSuccessful());
+      assertEquals(Collections.nCopies(4, "cancel"), calls);
+    }
+    // nothing after the cancellation was even looked at
+    assertEquals(8, metrics.posts(TestEvent.class));
+    assertEquals(0, metrics.rejections(TestEvent.class));
+  }
+
+  @Test
+  void testCompiledDispatch() {
+    final EventBus<Object> bus = EventBus.builder(Object.class).compiledDispatch(true).build();
+    final List<String> calls = new ArrayList<>();
+    final RuntimeException failure = new RuntimeException("failing");
+    final EventSubscriber<Object> failing = event -> {
+      calls.add("failing");
+      throw failure;
+    };
+    bus.subscribe(TestEvent.class, event -> {
+      calls.add("cancel");
+      event.cancelled(true);
+    });
+    bus.subscribe(TestEvent.class, notAcceptingCancelled(calls, "skipped", PostOrders.NORMAL));
+    bus.subscribe(Object.class, failing);
+    bus.subscribe(Object.class, recording(calls, "object", PostOrders.LATE));
+    bus.subscribe(TestEvent.class, notAcceptingCancelled(calls, "stopped", PostOrders.LAST));
+    assertEquals(Collections.singletonMap(failing, failure), bus.post(new TestEvent()).exceptions());
+    assertEquals(Arrays.asList("cancel", "failing", "object"), calls);
+    calls.clear();
+    assertFalse(bus.post("not cancellable", (subscriber, exception) -> calls.add("handled")));
+    assertEquals(Arrays.asList("failing", "handled", "object"), calls);
+    // compiled wherever hidden classes are available, and posted to as usual elsewhere
+    boolean hiddenClasses;
+    try {
+      Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+      hiddenClasses = true;
+    } catch(final ClassNotFoundException e) {
+      hiddenClasses = false;
+    }
+    final Baked<Object> baked = ((EventBusImpl<Object>) bus).dispatched(TestEvent.class);
+    assertEquals(hiddenClasses, baked.compiled(TestEvent.class) != null);
+  }
+
+  @Test
+  void testSubscribeAfterBakeKeepsOrder() {
+    final EventBus<Object> incremental = EventBus.create(Object.class);
+    final EventBus<Object> fresh = EventBus.create(Object.class);
+    final List<String> incrementalCalls = new ArrayList<>();
+    final List<String> freshCalls = new ArrayList<>();
+    incremental.subscribe(TestEvent.class, recording(incrementalCalls, "a", PostOrders.NORMAL));
+    incremental.post(new TestEvent()); // bake
+    incrementalCalls.clear();
+    final EventSubscription b = incremental.subscribe(Object.class, recording(incrementalCalls, "b", PostOrders.NORMAL));
+    incremental.subscribe(Cancellable.class, recording(incrementalCalls, "c", PostOrders.FIRST));
+    incremental.subscribe(TestEvent.class, recording(incrementalCalls, "d", PostOrders.NORMAL));
+    incremental.subscribe(Object.class, recording(incrementalCalls, "e", PostOrders.LAST));
+    b.unsubscribe();
+    incremental.subscribe(Object.class, recording(incrementalCalls, "b", PostOrders.NORMAL));
+    incremental.unsubscribeIf(subscriber -> subscriber.postOrder() == PostOrders.LAST);
+    incremental.post(new TestEvent());
+
+    fresh.subscribe(TestEvent.class, recording(freshCalls, "a", PostOrders.NORMAL));
+    fresh.subscribe(Cancellable.class, recording(freshCalls, "c", PostOrders.FIRST));
+    fresh.subscribe(TestEvent.class, recording(freshCalls, "d", PostOrders.NORMAL));
+    fresh.subscribe(Object.class, recording(freshCalls, "b", PostOrders.NORMAL));
+    fresh.post(new TestEvent());
+
+    assertEquals(Arrays.asList("c", "a", "d", "b"), incrementalCalls);
+    assertEquals(freshCalls, incrementalCalls);
+  }
+
+  @Test
+  void testAncestorOrder() {
+    // breadth first: the superclass before the interfaces in declaration order, and a diamond's root only once,
+    // after every path to it
+    assertEquals(Arrays.asList(Leaf.class, Base.class, Left.class, Right.class, Object.class, Root.class), Internals.ancestors(Leaf.class));
+    assertEquals(Arrays.asList(Base.class, Object.class, Right.class, Root.class), Internals.ancestors(Base.class));
+    assertEquals(Arrays.asList(Left.class, Root.class), Internals.ancestors(Left.class));
+  }
+
+  private static <T> EventSubscriber<T> notAcceptingCancelled(final List<String> calls, final String name, final int postOrder) {
+    return new EventSubscriber<T>() {
+      @Override
+      public void on(final @NonNull T event) {
+        calls.add(name);
+      }
+
+      @Override
+      public int postOrder() {
+        return postOrder;
+      }
+
+      @Override
+      public boolean acceptsCancelled() {
+        return false;
+      }
+    };
+  }
+
+  private static <T> EventSubscriber<T> recording(final List<String> calls, final String name, final int postOrder) {
+    return new EventSubscriber<T>() {
+      @Override
+      public void on(final @NonNull T event) {
+        calls.add(name);
+      }
+
+      @Override
+      public int postOrder() {
+        return postOrder;
+      }
+    };
+  }
+
   public final class TestEvent extends AbstractCancellable {
     int touches;
   }
+
+  // equal to every other instance
+  static final class Equal implements EventSubscriber<Object> {
+    @Override
+    public void on(final @NonNull Object event) {
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof Equal;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+  }
+
+  interface Root {
+  }
+
+  interface Left extends Root {
+  }
+
+  interface Right extends Root {
+  }
+
+  static class Base implements Right {
+  }
+
+  static final class Leaf extends Base implements Left, Right {
+  }
 }
@@ -0,0 +1,294 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventPipelineTest {
+  @Test
+  void testPostInOrder() {
+    final EventBus<Integer> bus = EventBus.create(Integer.class);
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    bus.subscribe(Integer.class, received::add);
+    final List<Integer> expected = new ArrayList<>();
+    final List<Thread> threads = new ArrayList<>();
+    try(final EventPipeline<Integer> pipeline = EventPipeline.builder(bus).capacity(4).build()) {
+      for(int i = 0; i < 4; i++) {
+        final int producer = i;
+        final Thread thread = new Thread(() -> {
+          for(int j = 0; j < 500; j++) {
+            pipeline.post(producer * 1000 + j);
+          }
+        });
+        threads.add(thread);
+        thread.start();
+        for(int j = 0; j < 500; j++) {
+          expected.add(producer * 1000 + j);
+        }
+      }
+      for(final Thread thread : threads) {
+        join(thread);
+      }
+    }
+    assertEquals(expected.size(), received.size());
+    // each producer's events arrive in the order they were posted
+    for(int i = 0; i < 4; i++) {
+      int last = -1;
+      for(final int value : received) {
+        if(value / 1000 == i) {
+          assertTrue(value > last);
+          last = value;
+        }
+      }
+    }
+  }
+
+  @Test
+  void testBackpressure() throws InterruptedException {
+    final EventBus<Integer> bus = EventBus.create(Integer.class);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    bus.subscribe(Integer.class, event -> {
+      started.countDown();
+      release.await();
+      received.add(event);
+    });
+
+    final EventPipeline<Integer> newest = EventPipeline.builder(bus).capacity(2).backpressure(EventPipeline.Backpressure.DROP_NEWEST).build();
+    assertTrue(newest.post(0));
+    assertTrue(started.await(5, TimeUnit.SECONDS)); // the dispatcher is now stuck on 0
+    assertTrue(newest.post(1));
+    assertTrue(newest.post(2));
+    assertFalse(newest.post(3));
+    assertEquals(2, newest.depth());
+    assertEquals(1, newest.dropped());
+    release.countDown();
+    newest.close();
+    assertEquals(Arrays.asList(0, 1, 2), received);
+  }
+
+  @Test
+  void testBlockedProducers() throws InterruptedException {
+    final EventBus<Integer> bus = EventBus.create(Integer.class);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    bus.subscribe(Integer.class, event -> {
+      started.countDown();
+      release.await();
+      received.add(event);
+    });
+    final List<Thread> threads = new ArrayList<>();
+    try(final EventPipeline<Integer> pipeline = EventPipeline.builder(bus).capacity(1).build()) {
+      pipeline.post(-1);
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      pipeline.post(-2);
+      // every producer is blocked at first, and each wakeup has to reach the next one
+      for(int i = 0; i < 4; i++) {
+        final int producer = i;
+        final Thread thread = new Thread(() -> {
+          for(int j = 0; j < 100; j++) {
+            pipeline.post(producer * 1000 + j);
+          }
+        });
+        threads.add(thread);
+        thread.start();
+      }
+      release.countDown();
+      for(final Thread thread : threads) {
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(thread.isAlive());
+      }
+    }
+    assertEquals(402, received.size());
+  }
+
+  @Test
+  void testCloseWhilstPosting() throws InterruptedException {
+    final EventBus<Integer> bus = EventBus.create(Integer.class);
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    bus.subscribe(Integer.class, received::add);
+    final List<Integer> accepted = Collections.synchronizedList(new ArrayList<>());
+    for(int i = 0; i < 200; i++) {
+      final EventPipeline<Integer> pipeline = EventPipeline.builder(bus).build();
+      final int event = i;
+      final Thread thread = new Thread(() -> {
+        try {
+          if(pipeline.post(event)) {
+            accepted.add(event);
+          }
+        } catch(final IllegalStateException e) {
+          // closed first
+        }
+      });
+      thread.start();
+      pipeline.close();
+      thread.join();
+    }
+    // an event is either refused or posted, never accepted and then lost
+    assertEquals(accepted, received);
+  }
+
+  @Test
+  void testDropOldestAndFail() throws InterruptedException {
+    final EventBus<Integer> bus = EventBus.create(Integer.class);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+    bus.subscribe(Integer.class, event -> {
+      started.countDown();
+      release.await();
+      received.add(event);
+    });
+
+    final EventPipeline<Integer> oldest = EventPipeline.builder(bus).capacity(2).backpressure(EventPipeline.Backpressure.DROP_OLDEST).build();
+    oldest.post(0);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    for(int i = 1; i <= 4; i++) {
+      assertTrue(oldest.post(i));
+    }
+    assertEquals(2, oldest.dropped());
+
+    final EventPipeline<Integer> fail = EventPipeline.builder(bus).capacity(2).backpressure(EventPipeline.Backpressure.FAIL).build();
+    fail.post(5);
+    fail.post(6);
+    // the dispatcher of this pipeline may or may not have taken the first event yet
+    assertThrows(RejectedExecutionException.class, () -> {
+      fail.post(7);
+      fail.post(8);
+    });
+    release.countDown();
+    oldest.close();
+    fail.close();
+    assertTrue(received.containsAll(Arrays.asList(0, 3, 4, 5)));
+    assertFalse(received.contains(1) || received.contains(2));
+    assertThrows(IllegalStateException.class, () -> fail.post(9));
+  }
+
+  @Test
+  void testCoalescing() throws InterruptedException {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Object> received = Collections.synchronizedList(new ArrayList<>());
+    bus.subscribe(String.class, event -> {
+      started.countDown();
+      release.await();
+    });
+    bus.subscribe(Position.class, received::add);
+    final EventPipeline<Object> pipeline = EventPipeline.builder(bus).build();
+    pipeline.post("block");
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    final Position a1 = new Position("a");
+    final Position b1 = new Position("b");
+    final Position a2 = new Position("a");
+    final Position a3 = new Position("a");
+    pipeline.post(a1);
+    pipeline.post(b1);
+    pipeline.post(a2);
+    pipeline.post(a3);
+    assertEquals(2, pipeline.depth());
+    assertEquals(2, pipeline.coalesced());
+    release.countDown();
+    pipeline.close();
+    assertEquals(Arrays.asList(a3, b1), received);
+  }
+
+  @Test
+  void testCoalescingKeepsClassesApart() throws InterruptedException {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Object> received = Collections.synchronizedList(new ArrayList<>());
+    bus.subscribe(String.class, event -> {
+      started.countDown();
+      release.await();
+    });
+    bus.subscribe(Coalescable.class, received::add);
+    final EventPipeline<Object> pipeline = EventPipeline.builder(bus).build();
+    pipeline.post("block");
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    final Position position1 = new Position("a");
+    final Velocity velocity1 = new Velocity("a");
+    final Position position2 = new Position("a");
+    final Velocity velocity2 = new Velocity("a");
+    pipeline.post(position1);
+    pipeline.post(velocity1);
+    pipeline.post(position2);
+    pipeline.post(velocity2);
+    assertEquals(2, pipeline.depth());
+    assertEquals(2, pipeline.coalesced());
+    release.countDown();
+    pipeline.close();
+    assertEquals(Arrays.asList(position2, velocity2), received);
+  }
+
+  private static void join(final Thread thread) {
+    try {
+      thread.join();
+    } catch(final InterruptedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  static final class Velocity implements Coalescable {
+    private final String key;
+
+    Velocity(final String key) {
+      this.key = key;
+    }
+
+    @Override
+    public @NonNull Object coalescingKey() {
+      return this.key;
+    }
+  }
+
+  static final class Position implements Coalescable {
+    private final String key;
+
+    Position(final String key) {
+      this.key = key;
+    }
+
+    @Override
+    public @NonNull Object coalescingKey() {
+      return this.key;
+    }
+  }
+}
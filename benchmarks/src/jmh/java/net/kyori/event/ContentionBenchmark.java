@@ -0,0 +1,82 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// posting on several threads while another keeps subscribing and unsubscribing
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentionBenchmark {
+  // whether the churning subscriber is for the posted event type, or an unrelated one
+  @Param({"false", "true"})
+  public boolean related;
+  private EventBus<Object> bus;
+  private Events.Simple event;
+  private Class<? extends Cancellable> churned;
+  private EventSubscriber<Object> subscriber;
+
+  @Setup
+  public void setup() {
+    this.bus = EventBus.create(Object.class);
+    for(int i = 0; i < 10; i++) {
+      this.bus.subscribe(Events.Simple.class, Subscribers.create(i));
+    }
+    this.event = new Events.Simple();
+    this.churned = this.related ? Events.Simple.class : Events.Deep.class;
+    this.subscriber = Subscribers.create(0);
+    this.bus.post(this.event);
+  }
+
+  @Benchmark
+  @Group("churn")
+  @GroupThreads(3)
+  public PostResult post() {
+    return this.bus.post(this.event);
+  }
+
+  @Benchmark
+  @Group("churn")
+  @GroupThreads(1)
+  public void subscribeUnsubscribe() {
+    this.bus.subscribe(this.churned, this.subscriber).unsubscribe();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+final class Events {
+  private Events() {
+  }
+
+  static final class Simple extends AbstractCancellable {
+  }
+
+  interface L0 {
+  }
+
+  interface L1 extends L0 {
+  }
+
+  interface L2 extends L1 {
+  }
+
+  interface L3 extends L2 {
+  }
+
+  interface W0 {
+  }
+
+  interface W1 {
+  }
+
+  interface W2 {
+  }
+
+  interface W3 extends W0, W1, W2, L1 {
+  }
+
+  abstract static class D0 extends AbstractCancellable implements L3 {
+  }
+
+  abstract static class D1 extends D0 implements W0 {
+  }
+
+  abstract static class D2 extends D1 implements W1, L2 {
+  }
+
+  abstract static class D3 extends D2 implements W3 {
+  }
+
+  abstract static class D4 extends D3 implements W2, L0 {
+  }
+
+  // 6 classes and 8 interfaces, several of which are reachable more than once
+  static final class Deep extends D4 implements W3 {
+  }
+
+  // event types that share no ancestry besides Object
+  static final Class<?>[] UNRELATED = {
+    U0.class, U1.class, U2.class, U3.class, U4.class, U5.class, U6.class, U7.class,
+    U8.class, U9.class, U10.class, U11.class, U12.class, U13.class, U14.class, U15.class
+  };
+
+  static final class U0 {
+  }
+
+  static final class U1 {
+  }
+
+  static final class U2 {
+  }
+
+  static final class U3 {
+  }
+
+  static final class U4 {
+  }
+
+  static final class U5 {
+  }
+
+  static final class U6 {
+  }
+
+  static final class U7 {
+  }
+
+  static final class U8 {
+  }
+
+  static final class U9 {
+  }
+
+  static final class U10 {
+  }
+
+  static final class U11 {
+  }
+
+  static final class U12 {
+  }
+
+  static final class U13 {
+  }
+
+  static final class U14 {
+  }
+
+  static final class U15 {
+  }
+}
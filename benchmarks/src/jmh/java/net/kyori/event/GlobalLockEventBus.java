@@ -0,0 +1,93 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+// A baseline for the bus locking each event type on its own: every change goes through a single lock, as it did
+// before. Posts are left unlocked, as they were then as well.
+final class GlobalLockEventBus<E> implements EventBus<E> {
+  private final EventBus<E> bus;
+  private final Object lock = new Object();
+
+  GlobalLockEventBus(final EventBus<E> bus) {
+    this.bus = bus;
+  }
+
+  @Override
+  public @NonNull Class<E> type() {
+    return this.bus.type();
+  }
+
+  @Override
+  public @NonNull PostResult post(final @NonNull E event) {
+    return this.bus.post(event);
+  }
+
+  @Override
+  public boolean subscribed(final @NonNull Class<? extends E> type) {
+    return this.bus.subscribed(type);
+  }
+
+  @Override
+  public <T extends E> @NonNull EventSubscription subscribe(final @NonNull Class<T> event, final @NonNull EventSubscriber<? super T> subscriber) {
+    final EventSubscription subscription;
+    synchronized(this.lock) {
+      subscription = this.bus.subscribe(event, subscriber);
+    }
+    return () -> {
+      synchronized(this.lock) {
+        subscription.unsubscribe();
+      }
+    };
+  }
+
+  @Override
+  public void prebake(final @NonNull Collection<? extends Class<? extends E>> types) {
+    synchronized(this.lock) {
+      this.bus.prebake(types);
+    }
+  }
+
+  @Override
+  public @NonNull ChildEventBus<E> child() {
+    return this.bus.child();
+  }
+
+  @Override
+  public void unsubscribeIf(final @NonNull Predicate<EventSubscriber<? super E>> predicate) {
+    synchronized(this.lock) {
+      this.bus.unsubscribeIf(predicate);
+    }
+  }
+
+  @Override
+  public void purge(final @NonNull ClassLoader loader) {
+    synchronized(this.lock) {
+      this.bus.purge(loader);
+    }
+  }
+}
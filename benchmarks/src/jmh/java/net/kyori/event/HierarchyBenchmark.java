@@ -0,0 +1,74 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HierarchyBenchmark {
+  @Param({"false", "true"})
+  public boolean deep;
+
+  private Class<?> type() {
+    return this.deep ? Events.Deep.class : Events.Simple.class;
+  }
+
+  @Benchmark
+  public List<? extends Class<?>> resolveAncestors() {
+    return Internals.resolveAncestors(this.type());
+  }
+
+  // what every bus pays after the first resolution
+  @Benchmark
+  public List<? extends Class<?>> cachedAncestors() {
+    return Internals.ancestors(this.type());
+  }
+
+  // the cost of the first post of an event type, which bakes its subscribers
+  @Benchmark
+  public PostResult firstPost() {
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    bus.subscribe(Events.L0.class, Subscribers.create(0));
+    bus.subscribe(Events.W2.class, Subscribers.create(1));
+    bus.subscribe(Cancellable.class, Subscribers.create(2));
+    bus.subscribe(this.type(), Subscribers.create(3));
+    return bus.post(this.deep ? new Events.Deep() : new Events.Simple());
+  }
+}
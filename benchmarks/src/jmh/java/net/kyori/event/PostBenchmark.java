@@ -0,0 +1,117 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PostBenchmark {
+  @Param({"0", "1", "10", "100"})
+  public int subscribers;
+  // the loop calls every subscriber from one call site, a compiled dispatcher from one each
+  @Param({"false", "true"})
+  public boolean compiledDispatch;
+  private EventBus<Object> bus;
+  // a protective subscriber cancels first, and nothing after it accepts cancelled events
+  private EventBus<Object> guarded;
+  // inherits the subscribers of bus, and adds one of its own
+  private EventBus<Object> child;
+  private Events.Simple event;
+  private Events.Simple cancelled;
+
+  @Setup
+  public void setup() {
+    this.bus = EventBus.builder(Object.class).compiledDispatch(this.compiledDispatch).build();
+    for(int i = 0; i < this.subscribers; i++) {
+      // half of the subscribers skip cancelled events
+      this.bus.subscribe(Events.Simple.class, i % 2 == 0 ? Subscribers.create(i) : Subscribers.notAcceptingCancelled());
+    }
+    this.event = new Events.Simple();
+    this.cancelled = new Events.Simple();
+    this.cancelled.cancelled(true);
+    this.guarded = EventBus.builder(Object.class).compiledDispatch(this.compiledDispatch).build();
+    this.guarded.subscribe(Events.Simple.class, new EventSubscriber<Events.Simple>() {
+      @Override
+      public void on(final Events.@NonNull Simple event) {
+        event.cancelled(true);
+      }
+
+      @Override
+      public int postOrder() {
+        return PostOrders.FIRST;
+      }
+    });
+    for(int i = 0; i < this.subscribers; i++) {
+      this.guarded.subscribe(Events.Simple.class, Subscribers.notAcceptingCancelled());
+    }
+    this.child = this.bus.child();
+    this.child.subscribe(Events.Simple.class, Subscribers.create(this.subscribers));
+    // bake outside of the measurement
+    this.bus.post(this.event);
+    this.child.post(this.event);
+    this.guarded.post(new Events.Simple());
+  }
+
+  @Benchmark
+  public PostResult post() {
+    return this.bus.post(this.event);
+  }
+
+  @Benchmark
+  public PostResult postCancelled() {
+    return this.bus.post(this.cancelled);
+  }
+
+  @Benchmark
+  public PostResult postGuarded() {
+    return this.guarded.post(new Events.Simple());
+  }
+
+  @Benchmark
+  public PostResult postChild() {
+    return this.child.post(this.event);
+  }
+
+  @Benchmark
+  public boolean subscribed() {
+    return this.bus.subscribed(Events.Simple.class);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// every thread subscribes, posts and unsubscribes on its own event type, so any contention comes from the bus
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScalingBenchmark {
+  // each event type locked on its own, or every change going through one lock
+  @Param({"type", "global"})
+  public String locking;
+  private EventBus<Object> bus;
+  private final AtomicInteger threads = new AtomicInteger();
+
+  @Setup
+  public void setup() {
+    this.bus = this.locking.equals("global") ? new GlobalLockEventBus<>(EventBus.create(Object.class)) : EventBus.create(Object.class);
+    for(int i = 0; i < 10; i++) {
+      this.bus.subscribe(Object.class, Subscribers.create(i));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class PerThread {
+    Class<Object> type;
+    Object event;
+    EventSubscriber<Object> subscriber;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup(final ScalingBenchmark benchmark) throws ReflectiveOperationException {
+      this.type = (Class<Object>) Events.UNRELATED[benchmark.threads.getAndIncrement() % Events.UNRELATED.length];
+      this.event = this.type.getDeclaredConstructor().newInstance();
+      this.subscriber = Subscribers.create(0);
+    }
+  }
+
+  private PostResult churn(final PerThread state) {
+    final EventSubscription subscription = this.bus.subscribe(state.type, state.subscriber);
+    final PostResult result = this.bus.post(state.event);
+    subscription.unsubscribe();
+    return result;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public PostResult threads01(final PerThread state) {
+    return this.churn(state);
+  }
+
+  @Benchmark
+  @Threads(2)
+  public PostResult threads02(final PerThread state) {
+    return this.churn(state);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public PostResult threads04(final PerThread state) {
+    return this.churn(state);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public PostResult threads08(final PerThread state) {
+    return this.churn(state);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public PostResult threads16(final PerThread state) {
+    return this.churn(state);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public PostResult threads32(final PerThread state) {
+    return this.churn(state);
+  }
+
+  @Benchmark
+  @Threads(64)
+  public PostResult threads64(final PerThread state) {
+    return this.churn(state);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+final class Subscribers {
+  private Subscribers() {
+  }
+
+  // a few distinct classes, so that the subscriber call site is megamorphic as it would be in a real application
+  static <E> EventSubscriber<E> create(final int index) {
+    switch(index % 4) {
+      case 0:
+        return new A<>();
+      case 1:
+        return new B<>();
+      case 2:
+        return new C<>();
+      default:
+        return new D<>();
+    }
+  }
+
+  static <E> EventSubscriber<E> notAcceptingCancelled() {
+    return new NotAcceptingCancelled<>();
+  }
+
+  static <E> EventSubscriber<E> throwing() {
+    return new Throwing<>();
+  }
+
+  static final class A<E> implements EventSubscriber<E> {
+    int calls;
+
+    @Override
+    public void on(final @NonNull E event) {
+      this.calls++;
+    }
+  }
+
+  static final class B<E> implements EventSubscriber<E> {
+    long hash;
+
+    @Override
+    public void on(final @NonNull E event) {
+      this.hash += event.hashCode();
+    }
+  }
+
+  static final class C<E> implements EventSubscriber<E> {
+    int cancelled;
+
+    @Override
+    public void on(final @NonNull E event) {
+      if(event instanceof Cancellable && ((Cancellable) event).cancelled()) {
+        this.cancelled++;
+      }
+    }
+  }
+
+  static final class D<E> implements EventSubscriber<E> {
+    Object last;
+
+    @Override
+    public void on(final @NonNull E event) {
+      this.last = event;
+    }
+
+    @Override
+    public int postOrder() {
+      return PostOrders.LATE;
+    }
+  }
+
+  static final class NotAcceptingCancelled<E> implements EventSubscriber<E> {
+    int calls;
+
+    @Override
+    public void on(final @NonNull E event) {
+      this.calls++;
+    }
+
+    @Override
+    public boolean acceptsCancelled() {
+      return false;
+    }
+  }
+
+  static final class Throwing<E> implements EventSubscriber<E> {
+    private static final RuntimeException EXCEPTION = new RuntimeException("benchmark", null, false, false) {
+      private static final long serialVersionUID = 1L;
+    };
+
+    @Override
+    public void on(final @NonNull E event) {
+      throw EXCEPTION;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.bridge;
+
+import java.io.IOException;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Carries frames of events between the {@link EventBridge bridges} of several nodes.
+ *
+ * <p>A transport only has to move opaque frames: every frame sent by one node should be received by
+ * each of the other nodes, in the order it was sent. A transport that cannot keep up should block in
+ * {@link #send(byte[])}, which in turn makes the bridge apply its backpressure policy.</p>
+ *
+ * @see LoopbackTransport
+ * @since 5.0.0
+ */
+public interface BridgeTransport extends AutoCloseable {
+  /**
+   * Starts receiving frames from other nodes.
+   *
+   * @param receiver the receiver to hand frames to
+   * @throws IOException if the transport could not be opened
+   * @since 5.0.0
+   */
+  void open(final @NonNull Receiver receiver) throws IOException;
+
+  /**
+   * Sends a frame to the other nodes.
+   *
+   * <p>This is only called from a single thread at a time. The frame is not modified once sent.</p>
+   *
+   * @param frame the frame
+   * @throws IOException if the frame could not be sent
+   * @since 5.0.0
+   */
+  void send(final byte @NonNull [] frame) throws IOException;
+
+  /**
+   * Stops sending and receiving frames.
+   *
+   * @throws IOException if the transport could not be closed
+   * @since 5.0.0
+   */
+  @Override
+  void close() throws IOException;
+
+  /**
+   * Receives frames sent by other nodes.
+   *
+   * @since 5.0.0
+   */
+  @FunctionalInterface
+  interface Receiver {
+    /**
+     * Receives a frame.
+     *
+     * @param frame the frame
+     * @since 5.0.0
+     */
+    void receive(final byte @NonNull [] frame);
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.bridge;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import net.kyori.event.EventBus;
+import net.kyori.event.EventPipeline;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Shares events between the {@link EventBus buses} of several nodes, such as several JVMs.
+ *
+ * <p>Events of the types that a bridge has a {@link EventCodec codec} for are forwarded to the other nodes
+ * once every local subscriber has seen them, unless they were cancelled. Only events of exactly those
+ * types are forwarded, not of their subclasses. Events received from other nodes are posted to the local
+ * bus, but are not forwarded again.</p>
+ *
+ * <p>Forwarded events are queued and written by a dedicated sender thread, which sends every event queued
+ * at the time in a single frame, up to the {@link Builder#batchSize(int) batch size}. When the queue is
+ * full, what happens depends on the {@link EventPipeline.Backpressure backpressure} policy.</p>
+ *
+ * <p>Each event is written as the id of its codec, its length and the bytes written by the codec. Nodes
+ * must agree on the codec for each id, but may each bridge a different subset of them - events with an
+ * unknown id are skipped.</p>
+ *
+ * @param <E> the event type
+ * @since 5.0.0
+ */
+public interface EventBridge<E> extends AutoCloseable {
+  /**
+   * Creates a builder for a bridge between {@code bus} and the other nodes reachable through {@code transport}.
+   *
+   * @param bus the local bus
+   * @param transport the transport
+   * @param <E> the event type
+   * @return a new builder
+   * @since 5.0.0
+   */
+  static <E> @NonNull Builder<E> builder(final @NonNull EventBus<E> bus, final @NonNull BridgeTransport transport) {
+    return new EventBridgeImpl.BuilderImpl<>(bus, transport);
+  }
+
+  /**
+   * Gets the local bus.
+   *
+   * @return the bus
+   * @since 5.0.0
+   */
+  @NonNull EventBus<E> bus();
+
+  /**
+   * Gets the number of events waiting to be sent.
+   *
+   * @return the queue depth
+   * @since 5.0.0
+   */
+  int depth();
+
+  /**
+   * Gets the number of events that were sent to other nodes.
+   *
+   * @return the number of sent events
+   * @since 5.0.0
+   */
+  long sent();
+
+  /**
+   * Gets the number of events that were received from other nodes and posted to the local bus.
+   *
+   * @return the number of received events
+   * @since 5.0.0
+   */
+  long received();
+
+  /**
+   * Gets the number of events that were dropped or rejected because the queue was full.
+   *
+   * @return the number of dropped events
+   * @since 5.0.0
+   */
+  long dropped();
+
+  /**
+   * Stops forwarding events, waits for the queued events to be sent, and closes the transport.
+   *
+   * <p>Events posted at the same time as the bridge is closed may not be sent.</p>
+   *
+   * @since 5.0.0
+   */
+  @Override
+  void close();
+
+  /**
+   * A builder for an {@link EventBridge}.
+   *
+   * @param <E> the event type
+   * @since 5.0.0
+   */
+  interface Builder<E> {
+    /**
+     * Adds the codec for a type of event, which is then forwarded to other nodes.
+     *
+     * @param id the id that the codec is known by on every node, which must not be negative
+     * @param type the event type
+     * @param codec the codec
+     * @param <T> the event type
+     * @return this builder
+     * @throws IllegalArgumentException if the id or type already has a codec
+     * @since 5.0.0
+     */
+    <T extends E> @NonNull Builder<E> codec(final int id, final @NonNull Class<T> type, final @NonNull EventCodec<T> codec);
+
+    /**
+     * Sets the number of events the queue can hold.
+     *
+     * <p>Defaults to {@code 1024}.</p>
+     *
+     * @param capacity the capacity
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> capacity(final int capacity);
+
+    /**
+     * Sets the maximum number of events sent in a single frame.
+     *
+     * <p>Defaults to {@code 64}.</p>
+     *
+     * @param batchSize the batch size
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> batchSize(final int batchSize);
+
+    /**
+     * Sets what happens when an event is forwarded while the queue is full.
+     *
+     * <p>Forwarding happens on the posting thread, so {@link EventPipeline.Backpressure#BLOCK blocking} holds up
+     * the post until there is room, and {@link EventPipeline.Backpressure#FAIL failing} reports a
+     * {@link RejectedExecutionException} in its {@link net.kyori.event.PostResult result}.</p>
+     *
+     * <p>Defaults to {@link EventPipeline.Backpressure#BLOCK}.</p>
+     *
+     * @param backpressure the backpressure policy
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> backpressure(final EventPipeline.@NonNull Backpressure backpressure);
+
+    /**
+     * Sets the factory that creates the sender thread.
+     *
+     * <p>Defaults to a daemon thread named {@code event-bridge}.</p>
+     *
+     * @param threadFactory the thread factory
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> threadFactory(final @NonNull ThreadFactory threadFactory);
+
+    /**
+     * Sets the handler for exceptions thrown whilst sending, receiving and posting received events.
+     *
+     * <p>Defaults to the {@link Thread#getUncaughtExceptionHandler() uncaught exception handler} of the
+     * thread the exception was thrown on.</p>
+     *
+     * @param exceptionHandler the exception handler
+     * @return this builder
+     * @since 5.0.0
+     */
+    @NonNull Builder<E> exceptionHandler(final @NonNull Consumer<? super Throwable> exceptionHandler);
+
+    /**
+     * Builds the bridge, opens the transport and starts forwarding events.
+     *
+     * @return a bridge
+     * @throws IOException if the transport could not be opened
+     * @since 5.0.0
+     */
+    @NonNull EventBridge<E> build() throws IOException;
+  }
+}
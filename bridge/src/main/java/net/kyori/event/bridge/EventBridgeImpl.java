@@ -0,0 +1,471 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.bridge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import net.kyori.event.EventBus;
+import net.kyori.event.EventPipeline.Backpressure;
+import net.kyori.event.EventSubscriber;
+import net.kyori.event.EventSubscription;
+import net.kyori.event.PostOrders;
+import net.kyori.event.SubscriptionGroup;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+final class EventBridgeImpl<E> implements EventBridge<E> {
+  private static final int VERSION = 1;
+  private static final ThreadFactory DEFAULT_THREAD_FACTORY = runnable -> {
+    final Thread thread = new Thread(runnable, "event-bridge");
+    thread.setDaemon(true);
+    return thread;
+  };
+  private final EventBus<E> bus;
+  private final BridgeTransport transport;
+  private final Map<Integer, Registration<? extends E>> registrations;
+  private final BlockingQueue<Outgoing<? extends E>> queue;
+  private final int batchSize;
+  private final Backpressure backpressure;
+  private final Consumer<? super Throwable> exceptionHandler;
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder received = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  // the received event being posted on this thread, which must not be sent back
+  private final ThreadLocal<Object> reposting = new ThreadLocal<>();
+  private final EventSubscription subscription;
+  private final Thread sender;
+  private volatile boolean sleeping;
+  private volatile boolean closed;
+
+  EventBridgeImpl(final BuilderImpl<E> builder) throws IOException {
+    this.bus = builder.bus;
+    this.transport = builder.transport;
+    this.registrations = new HashMap<>(builder.registrations);
+    this.queue = new ArrayBlockingQueue<>(builder.capacity);
+    this.batchSize = builder.batchSize;
+    this.backpressure = builder.backpressure;
+    this.exceptionHandler = builder.exceptionHandler != null ? builder.exceptionHandler : EventBridgeImpl::uncaught;
+    final SubscriptionGroup.Builder<E> group = SubscriptionGroup.builder();
+    for(final Registration<? extends E> registration : builder.registrations.values()) {
+      this.add(group, registration);
+    }
+    // subscribe before opening - anything that goes wrong from here on has to leave neither behind
+    this.subscription = this.bus.subscribe(group.build());
+    try {
+      this.transport.open(this::receive);
+      this.sender = requireNonNull(builder.threadFactory.newThread(this::send), "thread");
+      this.sender.start();
+    } catch(final IOException | RuntimeException | Error e) {
+      this.subscription.unsubscribe();
+      try {
+        this.transport.close();
+      } catch(final IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  private <T extends E> void add(final SubscriptionGroup.Builder<E> group, final Registration<T> registration) {
+    group.add(registration.type, new EventSubscriber<T>() {
+      @Override
+      public void on(final @NonNull T event) {
+        if(event.getClass() == registration.type && EventBridgeImpl.this.reposting.get() != event) {
+          EventBridgeImpl.this.forward(new Outgoing<>(registration, event));
+        }
+      }
+
+      // forwarded once every local subscriber has had its say
+      @Override
+      public int postOrder() {
+        return PostOrders.LAST;
+      }
+
+      @Override
+      public boolean acceptsCancelled() {
+        return false;
+      }
+
+      @Override
+      public String toString() {
+        return "EventBridge{id=" + registration.id + ", type=" + registration.type.getName() + "}";
+      }
+    });
+  }
+
+  @Override
+  public @NonNull EventBus<E> bus() {
+    return this.bus;
+  }
+
+  private void forward(final Outgoing<? extends E> outgoing) {
+    if(!this.queue.offer(outgoing)) {
+      switch(this.backpressure) {
+        case BLOCK:
+          try {
+            this.queue.put(outgoing);
+          } catch(final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.dropped.increment();
+            throw new RejectedExecutionException("interrupted whilst waiting for room in the queue");
+          }
+          break;
+        case DROP_OLDEST:
+          while(!this.queue.offer(outgoing)) {
+            if(this.queue.poll() != null) {
+              this.dropped.increment();
+            }
+          }
+          break;
+        case DROP_NEWEST:
+          this.dropped.increment();
+          return;
+        default:
+          this.dropped.increment();
+          throw new RejectedExecutionException("queue is full");
+      }
+    }
+    if(this.sleeping) {
+      LockSupport.unpark(this.sender);
+    }
+  }
+
+  private void send() {
+    final List<Outgoing<? extends E>> batch = new ArrayList<>(this.batchSize);
+    final ByteArrayOutputStream events = new ByteArrayOutputStream();
+    final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+    while(true) {
+      final Outgoing<? extends E> first = this.queue.poll();
+      if(first != null) {
+        batch.add(first);
+        this.queue.drainTo(batch, this.batchSize - 1);
+        try {
+          final int count = encode(batch, events, payload);
+          if(count != 0) {
+            frame.reset();
+            final DataOutputStream output = new DataOutputStream(frame);
+            output.writeByte(VERSION);
+            writeVarInt(output, count);
+            events.writeTo(output);
+            this.transport.send(frame.toByteArray());
+            this.sent.add(count);
+          }
+        } catch(final Throwable t) {
+          this.exceptionHandler.accept(t);
+        }
+        batch.clear();
+        continue;
+      }
+      if(this.closed && this.queue.isEmpty()) {
+        return;
+      }
+      this.sleeping = true;
+      if(this.queue.isEmpty() && !this.closed) {
+        LockSupport.park(this);
+      }
+      this.sleeping = false;
+    }
+  }
+
+  // writes each event as its id, length and payload - an event that fails to encode is left out, and reported
+  private int encode(final List<Outgoing<? extends E>> batch, final ByteArrayOutputStream events, final ByteArrayOutputStream payload) throws IOException {
+    events.reset();
+    final DataOutputStream output = new DataOutputStream(events);
+    final DataOutputStream payloadOutput = new DataOutputStream(payload);
+    int count = 0;
+    for(final Outgoing<? extends E> outgoing : batch) {
+      payload.reset();
+      try {
+        outgoing.encode(payloadOutput);
+      } catch(final IOException | RuntimeException e) {
+        this.exceptionHandler.accept(e);
+        continue;
+      }
+      writeVarInt(output, outgoing.registration.id);
+      writeVarInt(output, payload.size());
+      payload.writeTo(output);
+      count++;
+    }
+    return count;
+  }
+
+  private void receive(final byte @NonNull [] frame) {
+    if(this.closed) {
+      return;
+    }
+    try {
+      final FrameInput input = new FrameInput(frame);
+      final DataInputStream data = new DataInputStream(input);
+      final int version = data.readUnsignedByte();
+      if(version != VERSION) {
+        throw new IOException("unsupported frame version " + version);
+      }
+      final int count = readVarInt(data);
+      for(int i = 0; i < count; i++) {
+        final int id = readVarInt(data);
+        final int length = readVarInt(data);
+        final int start = input.position();
+        if(data.skipBytes(length) != length) {
+          throw new IOException("frame ends within an event");
+        }
+        final Registration<? extends E> registration = this.registrations.get(id);
+        if(registration != null) {
+          this.post(registration, new DataInputStream(new ByteArrayInputStream(frame, start, length)));
+        }
+      }
+    } catch(final IOException e) {
+      this.exceptionHandler.accept(e);
+    }
+  }
+
+  private void post(final Registration<? extends E> registration, final DataInputStream input) {
+    final E event;
+    try {
+      event = registration.codec.decode(input);
+    } catch(final IOException | RuntimeException e) {
+      this.exceptionHandler.accept(e);
+      return;
+    }
+    this.received.increment();
+    this.reposting.set(event);
+    try {
+      this.bus.post(event, (subscriber, t) -> this.exceptionHandler.accept(t));
+    } catch(final RuntimeException e) {
+      this.exceptionHandler.accept(e);
+    } finally {
+      this.reposting.remove();
+    }
+  }
+
+  private static void writeVarInt(final DataOutputStream output, final int value) throws IOException {
+    int remaining = value;
+    while((remaining & ~0x7f) != 0) {
+      output.writeByte((remaining & 0x7f) | 0x80);
+      remaining >>>= 7;
+    }
+    output.writeByte(remaining);
+  }
+
+  private static int readVarInt(final DataInputStream input) throws IOException {
+    int value = 0;
+    for(int shift = 0; shift < 35; shift += 7) {
+      final int b = input.readUnsignedByte();
+      value |= (b & 0x7f) << shift;
+      if((b & 0x80) == 0) {
+        if(value < 0) {
+          throw new IOException("negative varint");
+        }
+        return value;
+      }
+    }
+    throw new IOException("varint is too long");
+  }
+
+  private static void uncaught(final Throwable t) {
+    final Thread thread = Thread.currentThread();
+    thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+  }
+
+  @Override
+  public int depth() {
+    return this.queue.size();
+  }
+
+  @Override
+  public long sent() {
+    return this.sent.sum();
+  }
+
+  @Override
+  public long received() {
+    return this.received.sum();
+  }
+
+  @Override
+  public long dropped() {
+    return this.dropped.sum();
+  }
+
+  @Override
+  public void close() {
+    if(this.closed) {
+      return;
+    }
+    this.closed = true;
+    this.subscription.unsubscribe();
+    LockSupport.unpark(this.sender);
+    if(Thread.currentThread() != this.sender) {
+      boolean interrupted = false;
+      while(true) {
+        try {
+          this.sender.join();
+          break;
+        } catch(final InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if(interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    try {
+      this.transport.close();
+    } catch(final IOException e) {
+      this.exceptionHandler.accept(e);
+    }
+  }
+
+  // a frame that knows how far into it has been read
+  private static final class FrameInput extends ByteArrayInputStream {
+    FrameInput(final byte[] frame) {
+      super(frame);
+    }
+
+    int position() {
+      return this.pos;
+    }
+  }
+
+  private static final class Registration<T> {
+    final int id;
+    final Class<T> type;
+    final EventCodec<T> codec;
+
+    Registration(final int id, final Class<T> type, final EventCodec<T> codec) {
+      this.id = id;
+      this.type = type;
+      this.codec = codec;
+    }
+  }
+
+  // an event waiting to be sent, with the codec to write it with
+  private static final class Outgoing<T> {
+    final Registration<T> registration;
+    final T event;
+
+    Outgoing(final Registration<T> registration, final T event) {
+      this.registration = registration;
+      this.event = event;
+    }
+
+    void encode(final DataOutputStream output) throws IOException {
+      this.registration.codec.encode(this.event, output);
+    }
+  }
+
+  static final class BuilderImpl<E> implements Builder<E> {
+    private final EventBus<E> bus;
+    private final BridgeTransport transport;
+    // in the order they were added, so that every node subscribes in the same order
+    private final Map<Integer, Registration<? extends E>> registrations = new LinkedHashMap<>();
+    private int capacity = 1024;
+    private int batchSize = 64;
+    private Backpressure backpressure = Backpressure.BLOCK;
+    private ThreadFactory threadFactory = DEFAULT_THREAD_FACTORY;
+    private @Nullable Consumer<? super Throwable> exceptionHandler;
+
+    BuilderImpl(final EventBus<E> bus, final BridgeTransport transport) {
+      this.bus = requireNonNull(bus, "bus");
+      this.transport = requireNonNull(transport, "transport");
+    }
+
+    @Override
+    public <T extends E> @NonNull Builder<E> codec(final int id, final @NonNull Class<T> type, final @NonNull EventCodec<T> codec) {
+      if(id < 0) {
+        throw new IllegalArgumentException("id must not be negative, got " + id);
+      }
+      requireNonNull(type, "type");
+      requireNonNull(codec, "codec");
+      if(this.registrations.containsKey(id)) {
+        throw new IllegalArgumentException("id " + id + " already has a codec");
+      }
+      for(final Registration<? extends E> registration : this.registrations.values()) {
+        if(registration.type == type) {
+          throw new IllegalArgumentException(type + " already has a codec");
+        }
+      }
+      this.registrations.put(id, new Registration<>(id, type, codec));
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> capacity(final int capacity) {
+      if(capacity < 1) {
+        throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+      }
+      this.capacity = capacity;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> batchSize(final int batchSize) {
+      if(batchSize < 1) {
+        throw new IllegalArgumentException("batchSize must be positive, got " + batchSize);
+      }
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> backpressure(final @NonNull Backpressure backpressure) {
+      this.backpressure = requireNonNull(backpressure, "backpressure");
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> threadFactory(final @NonNull ThreadFactory threadFactory) {
+      this.threadFactory = requireNonNull(threadFactory, "threadFactory");
+      return this;
+    }
+
+    @Override
+    public @NonNull Builder<E> exceptionHandler(final @NonNull Consumer<? super Throwable> exceptionHandler) {
+      this.exceptionHandler = requireNonNull(exceptionHandler, "exceptionHandler");
+      return this;
+    }
+
+    @Override
+    public @NonNull EventBridge<E> build() throws IOException {
+      return new EventBridgeImpl<>(this);
+    }
+  }
+}
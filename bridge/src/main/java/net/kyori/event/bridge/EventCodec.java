@@ -0,0 +1,60 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.bridge;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Writes events of a single type to bytes, and reads them back.
+ *
+ * <p>Both ends of a {@link EventBridge bridge} must use the same codec for a type. Only the event itself
+ * is written - which codec to read it with, and how long it is, is written by the bridge.</p>
+ *
+ * @param <T> the event type
+ * @since 5.0.0
+ */
+public interface EventCodec<T> {
+  /**
+   * Writes an event.
+   *
+   * @param event the event
+   * @param output the output to write to
+   * @throws IOException if the event could not be written
+   * @since 5.0.0
+   */
+  void encode(final @NonNull T event, final @NonNull DataOutput output) throws IOException;
+
+  /**
+   * Reads an event.
+   *
+   * @param input the input to read from, which ends where the event does
+   * @return the event
+   * @throws IOException if the event could not be read
+   * @since 5.0.0
+   */
+  @NonNull T decode(final @NonNull DataInput input) throws IOException;
+}
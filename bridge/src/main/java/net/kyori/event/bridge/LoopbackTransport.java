@@ -0,0 +1,111 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.bridge;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A transport between nodes in the same JVM, for tests and for running several nodes in one process.
+ *
+ * <p>Frames are handed to the receivers of the other nodes of the same {@link Network network} directly,
+ * on the sending thread - so a slow receiver slows the sender down, as a full socket would.</p>
+ *
+ * @since 5.0.0
+ */
+public final class LoopbackTransport implements BridgeTransport {
+  private final Network network;
+  private volatile @Nullable Receiver receiver;
+
+  private LoopbackTransport(final Network network) {
+    this.network = network;
+  }
+
+  /**
+   * Creates a network to connect transports to.
+   *
+   * @return a new network
+   * @since 5.0.0
+   */
+  public static @NonNull Network network() {
+    return new Network();
+  }
+
+  @Override
+  public void open(final @NonNull Receiver receiver) throws IOException {
+    if(this.receiver != null) {
+      throw new IOException("transport is already open");
+    }
+    this.receiver = requireNonNull(receiver, "receiver");
+    this.network.nodes.add(this);
+  }
+
+  @Override
+  public void send(final byte @NonNull [] frame) throws IOException {
+    if(this.receiver == null) {
+      throw new IOException("transport is not open");
+    }
+    for(final LoopbackTransport node : this.network.nodes) {
+      final Receiver receiver = node.receiver;
+      if(node != this && receiver != null) {
+        receiver.receive(frame);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    this.network.nodes.remove(this);
+    this.receiver = null;
+  }
+
+  /**
+   * A set of connected transports.
+   *
+   * @since 5.0.0
+   */
+  public static final class Network {
+    private final Set<LoopbackTransport> nodes = new CopyOnWriteArraySet<>();
+
+    Network() {
+    }
+
+    /**
+     * Creates a transport connected to this network.
+     *
+     * <p>The transport receives the frames sent by every other transport of this network, once it is opened.</p>
+     *
+     * @return a new transport
+     * @since 5.0.0
+     */
+    public @NonNull LoopbackTransport connect() {
+      return new LoopbackTransport(this);
+    }
+  }
+}
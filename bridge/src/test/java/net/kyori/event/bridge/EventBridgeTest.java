@@ -0,0 +1,210 @@
+/*
+ * This file is part of event, licensed under the MIT License.
+ *
+ * Copyright (c) 2017-2021 KyoriPowered
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.kyori.event.bridge;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.kyori.event.AbstractCancellable;
+import net.kyori.event.EventBus;
+import net.kyori.event.EventPipeline;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventBridgeTest {
+  private static final EventCodec<Chat> CHAT = new EventCodec<Chat>() {
+    @Override
+    public void encode(final @NonNull Chat event, final @NonNull DataOutput output) throws IOException {
+      output.writeUTF(event.message);
+    }
+
+    @Override
+    public @NonNull Chat decode(final @NonNull DataInput input) throws IOException {
+      return new Chat(input.readUTF());
+    }
+  };
+  private static final EventCodec<Ping> PING = new EventCodec<Ping>() {
+    @Override
+    public void encode(final @NonNull Ping event, final @NonNull DataOutput output) {
+    }
+
+    @Override
+    public @NonNull Ping decode(final @NonNull DataInput input) {
+      return new Ping();
+    }
+  };
+
+  @Test
+  void testForwardsBetweenNodes() throws Exception {
+    final LoopbackTransport.Network network = LoopbackTransport.network();
+    final List<Throwable> exceptions = new CopyOnWriteArrayList<>();
+    final EventBus<Object> first = EventBus.create(Object.class);
+    final EventBus<Object> second = EventBus.create(Object.class);
+    final List<String> firstCalls = new CopyOnWriteArrayList<>();
+    final List<String> secondCalls = new CopyOnWriteArrayList<>();
+    final CountDownLatch delivered = new CountDownLatch(2);
+    first.subscribe(Chat.class, event -> firstCalls.add(event.message));
+    second.subscribe(Chat.class, event -> {
+      secondCalls.add(event.message);
+      delivered.countDown();
+    });
+    second.subscribe(Ping.class, event -> secondCalls.add("ping"));
+    // the second node doesn't know about pings, so they are skipped
+    try(final EventBridge<Object> firstBridge = EventBridge.builder(first, network.connect()).codec(1, Chat.class, CHAT).codec(2, Ping.class, PING).exceptionHandler(exceptions::add).build();
+        final EventBridge<Object> secondBridge = EventBridge.builder(second, network.connect()).codec(1, Chat.class, CHAT).exceptionHandler(exceptions::add).build()) {
+      first.post(new Ping());
+      first.post(new Chat("hello"));
+      first.post(new Chat("world"));
+      assertTrue(delivered.await(5, TimeUnit.SECONDS));
+      firstBridge.close();
+      assertEquals(3, firstBridge.sent());
+      assertEquals(2, secondBridge.received());
+      // received events are not sent back
+      assertEquals(0, secondBridge.sent());
+    }
+    assertEquals(Arrays.asList("hello", "world"), firstCalls);
+    assertEquals(Arrays.asList("hello", "world"), secondCalls);
+    assertEquals(Collections.emptyList(), exceptions);
+  }
+
+  @Test
+  void testCancelledEventsAreNotForwarded() throws IOException {
+    final List<byte[]> frames = new ArrayList<>();
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    bus.subscribe(Chat.class, event -> event.cancelled(true));
+    try(final EventBridge<Object> bridge = EventBridge.builder(bus, new Recording(frames)).codec(1, Chat.class, CHAT).build()) {
+      bus.post(new Chat("cancelled"));
+      bridge.close();
+      assertEquals(0, bridge.sent());
+    }
+    assertEquals(Collections.emptyList(), frames);
+  }
+
+  @Test
+  void testBackpressure() throws Exception {
+    final CountDownLatch sending = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<byte[]> frames = new ArrayList<>();
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final BridgeTransport blocking = new Recording(frames) {
+      @Override
+      public void send(final byte @NonNull [] frame) throws IOException {
+        sending.countDown();
+        try {
+          release.await();
+        } catch(final InterruptedException e) {
+          throw new IOException(e);
+        }
+        super.send(frame);
+      }
+    };
+    try(final EventBridge<Object> bridge = EventBridge.builder(bus, blocking)
+      .codec(1, Chat.class, CHAT)
+      .capacity(2)
+      .backpressure(EventPipeline.Backpressure.DROP_NEWEST)
+      .build()) {
+      bus.post(new Chat("sending"));
+      assertTrue(sending.await(5, TimeUnit.SECONDS));
+      bus.post(new Chat("queued"));
+      bus.post(new Chat("queued"));
+      bus.post(new Chat("dropped"));
+      assertEquals(2, bridge.depth());
+      assertEquals(1, bridge.dropped());
+      release.countDown();
+      bridge.close();
+      assertEquals(3, bridge.sent());
+    }
+    // the queued events are sent together
+    assertEquals(2, frames.size());
+  }
+
+  @Test
+  void testFailingToOpenLeavesNothingBehind() {
+    final AtomicBoolean closed = new AtomicBoolean();
+    final EventBus<Object> bus = EventBus.create(Object.class);
+    final BridgeTransport failing = new BridgeTransport() {
+      @Override
+      public void open(final @NonNull Receiver receiver) throws IOException {
+        throw new IOException("unreachable");
+      }
+
+      @Override
+      public void send(final byte @NonNull [] frame) {
+      }
+
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    };
+    assertThrows(IOException.class, () -> EventBridge.builder(bus, failing).codec(1, Chat.class, CHAT).build());
+    assertFalse(bus.subscribed(Chat.class));
+    assertTrue(closed.get());
+  }
+
+  static final class Chat extends AbstractCancellable {
+    final String message;
+
+    Chat(final String message) {
+      this.message = message;
+    }
+  }
+
+  static final class Ping {
+  }
+
+  static class Recording implements BridgeTransport {
+    private final List<byte[]> frames;
+
+    Recording(final List<byte[]> frames) {
+      this.frames = frames;
+    }
+
+    @Override
+    public void open(final @NonNull Receiver receiver) {
+    }
+
+    @Override
+    public void send(final byte @NonNull [] frame) throws IOException {
+      this.frames.add(frame);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}